@@ -0,0 +1,170 @@
+package com.example;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Album art at display size. Embedded covers are read with TagReader and decoded once, off the FX
+// thread, at thumbnail size; the pixels are saved under the SHA-256 of the original image bytes, so
+// every track of an album shares one thumbnail on disk and one Image in memory, and later runs
+// skip the decode. Only a bounded number of thumbnails is kept in the heap.
+final class ArtworkCache implements AutoCloseable {
+
+    private static final int MEMORY_ENTRIES = 32;
+    private static final String NO_ARTWORK = "";
+    private static final String THUMBNAIL_SUFFIX = ".thumb";
+
+    private final Path dir;
+    private final int thumbnailSize;
+    private final Map<String, Image> images = new LinkedHashMap<String, Image>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+    // Track (path, size, mtime) -> cover hash, so a replayed track is not read again
+    private final Map<String, String> trackHashes = new ConcurrentHashMap<>();
+    private final ExecutorService pool;
+
+    ArtworkCache(Path dir, int size) {
+        this.dir = dir;
+        this.thumbnailSize = size;
+        this.pool = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "aurora-artwork");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // onLoaded runs on the artwork thread, with null if the track has no usable cover
+    void load(File track, Consumer<Image> onLoaded) {
+        pool.execute(() -> {
+            Image image = null;
+            try {
+                image = loadNow(track);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to load artwork for " + track + ": " + e.getMessage());
+            }
+            onLoaded.accept(image);
+        });
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private Image loadNow(File track) throws IOException {
+        String trackKey = track.getAbsolutePath() + "|" + track.length() + "|" + track.lastModified();
+        String hash = trackHashes.get(trackKey);
+        if (hash != null) {
+            if (hash.equals(NO_ARTWORK)) return null;
+            Image image = cachedOrSaved(hash);
+            if (image != null) return image;
+            // Thumbnail deleted since the hash was remembered
+        }
+
+        byte[] picture = TagReader.readPicture(track.toPath());
+        if (picture == null) {
+            trackHashes.put(trackKey, NO_ARTWORK);
+            return null;
+        }
+        hash = AudioCache.sha256Hex(picture);
+        Image image = cachedOrSaved(hash);
+        if (image == null) {
+            // Decoded straight to thumbnail size; the full-size cover is never kept
+            image = new Image(new ByteArrayInputStream(picture), thumbnailSize, thumbnailSize, true, true);
+            if (image.isError()) {
+                throw new IOException(image.getException() != null ? image.getException().getMessage() : "unsupported image format");
+            }
+            try {
+                writeThumbnail(hash, image);
+            } catch (IOException e) {
+                // Still shown; decoded again next run
+                System.err.println("Failed to save artwork thumbnail: " + e.getMessage());
+            }
+            remember(hash, image);
+        }
+        trackHashes.put(trackKey, hash);
+        return image;
+    }
+
+    private Image cachedOrSaved(String hash) {
+        synchronized (images) {
+            Image cached = images.get(hash);
+            if (cached != null) return cached;
+        }
+        Image image = readThumbnail(hash);
+        if (image != null) remember(hash, image);
+        return image;
+    }
+
+    private void remember(String hash, Image image) {
+        synchronized (images) {
+            images.put(hash, image);
+        }
+    }
+
+    // Width, height, then ARGB pixels, deflated. Transparent covers keep their alpha and show the
+    // album pane's background, as they would if the cover were displayed directly.
+    private void writeThumbnail(String hash, Image image) throws IOException {
+        PixelReader reader = image.getPixelReader();
+        if (reader == null) return;
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+        reader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, hash, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(width);
+                out.writeInt(height);
+                for (int pixel : pixels) {
+                    out.writeInt(pixel);
+                }
+            }
+            Files.move(tmp, dir.resolve(hash + THUMBNAIL_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Null if there is no usable thumbnail; a damaged one is deleted so it is made again
+    private Image readThumbnail(String hash) {
+        Path thumbnail = dir.resolve(hash + THUMBNAIL_SUFFIX);
+        if (!Files.exists(thumbnail)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(Files.newInputStream(thumbnail))))) {
+            int width = in.readInt();
+            int height = in.readInt();
+            if (width <= 0 || height <= 0 || width > thumbnailSize || height > thumbnailSize) {
+                throw new IOException("bad thumbnail size " + width + "x" + height);
+            }
+            int[] pixels = new int[width * height];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = in.readInt();
+            }
+            WritableImage image = new WritableImage(width, height);
+            image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+            return image;
+        } catch (IOException e) {
+            System.err.println("Failed to read artwork thumbnail " + thumbnail + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(thumbnail);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// Downloaded audio for URL tracks, stored under the SHA-256 of the URL so a track downloaded once
+// plays straight from disk after a restart. The index (index.txt) keeps entries in least recently
+// used order; once the cache grows past maxBytes the oldest entries are deleted.
+final class AudioCache implements AutoCloseable {
+
+    private static final String INDEX_FILE = "index.txt";
+
+    private static final class Entry {
+        final String url;
+        final String fileName;
+        final long size;
+
+        Entry(String url, String fileName, long size) {
+            this.url = url;
+            this.fileName = fileName;
+            this.size = size;
+        }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    // Keyed by URL, iterated oldest access first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private boolean dirty = false;
+
+    AudioCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    // The cached file for url, or null if it was never downloaded or has been evicted
+    synchronized File get(String url) {
+        Entry entry = entries.get(url);
+        if (entry == null) return null;
+        dirty = true;
+
+        File file = dir.resolve(entry.fileName).toFile();
+        if (!file.isFile()) {
+            remove(url);
+            return null;
+        }
+        return file;
+    }
+
+    // A scratch path in the cache folder to download into before put(); nothing exists there yet
+    File newDownloadFile(String url, String extension) throws IOException {
+        Files.createDirectories(dir);
+        Path part = Files.createTempFile(dir, keyOf(url) + "-", ".part." + extension);
+        Files.delete(part);
+        return part.toFile();
+    }
+
+    // The finished file yt-dlp wrote for a newDownloadFile(url, "%(ext)s") template, or null
+    File findDownload(File template) {
+        String name = template.getName();
+        String prefix = name.substring(0, name.lastIndexOf('.') + 1);
+        File[] matches = dir.toFile().listFiles((d, candidate) -> candidate.startsWith(prefix)
+                && !candidate.endsWith(".part") && !candidate.endsWith(".ytdl"));
+        return matches == null || matches.length == 0 ? null : matches[0];
+    }
+
+    // Moves a finished download into the cache and returns its new location
+    synchronized File put(String url, File downloaded, String extension) throws IOException {
+        Files.createDirectories(dir);
+        String fileName = keyOf(url) + "." + extension;
+        Path target = dir.resolve(fileName);
+        Files.move(downloaded.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+
+        Entry previous = entries.remove(url);
+        if (previous != null) {
+            totalBytes -= previous.size;
+            if (!previous.fileName.equals(fileName)) deleteQuietly(previous.fileName);
+        }
+        Entry entry = new Entry(url, fileName, Files.size(target));
+        entries.put(url, entry);
+        totalBytes += entry.size;
+
+        evict(url);
+        save();
+        return target.toFile();
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (dirty) save();
+    }
+
+    // Deletes least recently used entries until the cache fits, never the one just added
+    private void evict(String keep) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.url.equals(keep)) continue;
+            if (!deleteQuietly(entry.fileName)) continue;
+            it.remove();
+            totalBytes -= entry.size;
+        }
+    }
+
+    private void remove(String url) {
+        Entry entry = entries.remove(url);
+        if (entry != null) totalBytes -= entry.size;
+    }
+
+    // A file still open for playback may refuse to be deleted on some systems; it stays cached
+    private boolean deleteQuietly(String fileName) {
+        try {
+            Files.deleteIfExists(dir.resolve(fileName));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to evict cached audio " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void load() {
+        Path index = dir.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            try {
+                for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                    // size \t file name \t url, oldest access first
+                    String[] parts = line.split("\t", 3);
+                    if (parts.length < 3) continue;
+                    Entry entry = new Entry(parts[2], parts[1], Long.parseLong(parts[0]));
+                    entries.put(entry.url, entry);
+                    totalBytes += entry.size;
+                }
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Failed to load audio cache index: " + e.getMessage());
+            }
+        }
+
+        // Downloads interrupted by a previous exit
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(dir, "*.part.*")) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing cached yet
+        } catch (IOException e) {
+            System.err.println("Failed to clean audio cache: " + e.getMessage());
+        }
+    }
+
+    private void save() {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            lines.add(entry.size + "\t" + entry.fileName + "\t" + entry.url);
+        }
+        try {
+            Files.createDirectories(dir);
+            Path index = dir.resolve(INDEX_FILE);
+            Path tmp = index.resolveSibling(INDEX_FILE + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Failed to save audio cache index: " + e.getMessage());
+        }
+    }
+
+    static String keyOf(String url) {
+        return sha256Hex(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256Hex(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
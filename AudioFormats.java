@@ -0,0 +1,70 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Container detection for the formats JavaFX Media can play, by extension and by magic bytes.
+final class AudioFormats {
+
+    enum Format {
+        MP3, WAV, M4A, UNKNOWN
+    }
+
+    private static final int SNIFF_BYTES = 12;
+
+    private AudioFormats() {
+    }
+
+    static boolean hasAudioExtension(String fileName) {
+        return fromExtension(fileName) != Format.UNKNOWN;
+    }
+
+    static Format fromExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) return Format.UNKNOWN;
+        switch (fileName.substring(dot + 1).toLowerCase(Locale.ROOT)) {
+            case "mp3":
+                return Format.MP3;
+            case "wav":
+                return Format.WAV;
+            case "m4a":
+                return Format.M4A;
+            default:
+                return Format.UNKNOWN;
+        }
+    }
+
+    static Format sniff(Path file) {
+        byte[] header = new byte[SNIFF_BYTES];
+        int read = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            while (read < header.length) {
+                int n = in.read(header, read, header.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+        } catch (IOException e) {
+            return Format.UNKNOWN;
+        }
+        return sniff(header, read);
+    }
+
+    static Format sniff(byte[] header, int length) {
+        if (length >= 3 && header[0] == 'I' && header[1] == 'D' && header[2] == '3') return Format.MP3;
+        // An MPEG audio frame sync with a layer set; layer bits 00 mark raw ADTS AAC, which Media cannot play
+        if (length >= 2 && (header[0] & 0xff) == 0xff && (header[1] & 0xe0) == 0xe0 && (header[1] & 0x06) != 0) return Format.MP3;
+        if (length >= 12 && ascii(header, 0, "RIFF") && ascii(header, 8, "WAVE")) return Format.WAV;
+        if (length >= 8 && ascii(header, 4, "ftyp")) return Format.M4A;
+        return Format.UNKNOWN;
+    }
+
+    private static boolean ascii(byte[] bytes, int offset, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (bytes[offset + i] != expected.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+// Runs URL downloads on a small bounded pool; extra URLs wait in the pool's queue. A failed
+// attempt is retried after a growing delay, and cancelling a job destroys the yt-dlp/ffmpeg
+// processes it started. Job state is only written by workers and read by polling, so no
+// per-update UI task is posted.
+final class DownloadManager implements AutoCloseable {
+
+    enum State {
+        QUEUED, RUNNING, RETRYING, DONE, FAILED, CANCELLED
+    }
+
+    interface Pipeline {
+        // Downloads job.url, starting processes through job.start() so they can be cancelled
+        void run(Job job) throws IOException, InterruptedException;
+    }
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_MILLIS = 2000;
+
+    final class Job {
+        final String url;
+        private final Pipeline pipeline;
+        private final Consumer<Job> onFinished;
+        private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+        private volatile State state = State.QUEUED;
+        private volatile double progress = 0;
+        private volatile String message = "Queued";
+        private volatile int attempt = 0;
+        private volatile Future<?> future;
+
+        private Job(String url, Pipeline pipeline, Consumer<Job> onFinished) {
+            this.url = url;
+            this.pipeline = pipeline;
+            this.onFinished = onFinished;
+        }
+
+        State getState() {
+            return state;
+        }
+
+        double getProgress() {
+            return progress;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        boolean isFinished() {
+            return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+        }
+
+        void update(double progress, String message) {
+            this.progress = progress;
+            this.message = message;
+        }
+
+        Process start(ProcessBuilder builder) throws IOException {
+            if (state == State.CANCELLED) throw new IOException("Download cancelled");
+            Process process = builder.start();
+            processes.add(process);
+            // cancel() may have run between the check and the add
+            if (state == State.CANCELLED) destroy(process);
+            return process;
+        }
+
+        // Each process's stdout feeds the next one's stdin
+        List<Process> startPipeline(List<ProcessBuilder> builders) throws IOException {
+            if (state == State.CANCELLED) throw new IOException("Download cancelled");
+            List<Process> started = ProcessBuilder.startPipeline(builders);
+            processes.addAll(started);
+            if (state == State.CANCELLED) started.forEach(DownloadManager::destroy);
+            return started;
+        }
+
+        void finished(Process process) {
+            processes.remove(process);
+        }
+
+        void cancel() {
+            if (isFinished()) return;
+            state = State.CANCELLED;
+            message = "Cancelled";
+            processes.forEach(DownloadManager::destroy);
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+    }
+
+    private final Pipeline defaultPipeline;
+    private final ScheduledThreadPoolExecutor executor;
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+
+    DownloadManager(int parallelism, Pipeline defaultPipeline) {
+        this.defaultPipeline = defaultPipeline;
+        this.executor = new ScheduledThreadPoolExecutor(parallelism, new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "aurora-download-" + ++count);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    // A URL already queued or downloading is not started twice. onFinished runs on the
+    // worker thread once the job is DONE or has FAILED for good.
+    Job submit(String url, Consumer<Job> onFinished) {
+        return submit(url, defaultPipeline, onFinished);
+    }
+
+    // Same, with a pipeline other than the default one for this job
+    Job submit(String url, Pipeline pipeline, Consumer<Job> onFinished) {
+        for (Job job : jobs) {
+            if (job.url.equals(url) && !job.isFinished()) return job;
+        }
+        Job job = new Job(url, pipeline, onFinished);
+        jobs.add(job);
+        job.future = executor.submit(() -> runAttempt(job));
+        return job;
+    }
+
+    List<Job> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    void clearFinished() {
+        jobs.removeIf(Job::isFinished);
+    }
+
+    int getActiveCount() {
+        int active = 0;
+        for (Job job : jobs) {
+            if (!job.isFinished()) active++;
+        }
+        return active;
+    }
+
+    // Average progress of the jobs still queued or running
+    double getAggregateProgress() {
+        double total = 0;
+        int active = 0;
+        for (Job job : jobs) {
+            if (job.isFinished()) continue;
+            total += job.progress;
+            active++;
+        }
+        return active == 0 ? 1 : total / active;
+    }
+
+    @Override
+    public void close() {
+        jobs.forEach(Job::cancel);
+        executor.shutdownNow();
+    }
+
+    private void runAttempt(Job job) {
+        if (job.state == State.CANCELLED) return;
+        job.attempt++;
+        job.state = State.RUNNING;
+        job.update(0, job.attempt == 1 ? "Starting download..." : "Retrying (attempt " + job.attempt + ")...");
+
+        try {
+            job.pipeline.run(job);
+            if (job.state == State.CANCELLED) return;
+            job.state = State.DONE;
+            job.update(1, "Done");
+        } catch (InterruptedException e) {
+            return;
+        } catch (Exception e) {
+            if (job.state == State.CANCELLED) return;
+            if (job.attempt < MAX_ATTEMPTS && !executor.isShutdown()) {
+                long delay = BACKOFF_MILLIS << (job.attempt - 1);
+                job.state = State.RETRYING;
+                job.update(0, "Failed (" + e.getMessage() + "), retrying in " + delay / 1000 + "s");
+                job.future = executor.schedule(() -> runAttempt(job), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            System.err.println("Failed to download " + job.url + ": " + e.getMessage());
+            job.state = State.FAILED;
+            job.message = e.getMessage();
+        } finally {
+            job.processes.forEach(DownloadManager::destroy);
+        }
+        job.onFinished.accept(job);
+    }
+
+    private static void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
@@ -0,0 +1,241 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Track length from file headers, without opening a MediaPlayer: the Xing/Info or VBRI header of
+// an MP3's first frame (else a frame scan), the fmt/data chunks of a WAV and the mvhd atom of
+// an MP4. Plain CBR MP3s are detected from their first frames and computed from the file size,
+// so only VBR files without a header are scanned to the end.
+final class DurationProbe {
+
+    private static final int SYNC_SEARCH_BYTES = 64 * 1024;
+    private static final int SCAN_BUFFER_BYTES = 64 * 1024;
+    private static final int CBR_CHECK_FRAMES = 32;
+
+    // Bitrates in kbit/s by [MPEG-1 ? 0 : 1][layer I/II/III][index]
+    private static final int[][][] BITRATES = {
+            {
+                    {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+                    {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+                    {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+            },
+            {
+                    {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+                    {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+                    {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            },
+    };
+    private static final int[] SAMPLE_RATES = {44100, 48000, 32000};
+
+    private DurationProbe() {
+    }
+
+    // Milliseconds, or -1 if the format is unknown or the headers are unusable
+    static long probeMillis(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = TagReader.read(channel, 0, 12);
+            byte[] bytes = new byte[header.remaining()];
+            header.get(bytes);
+            switch (AudioFormats.sniff(bytes, bytes.length)) {
+                case MP3:
+                    return probeMp3(channel, bytes);
+                case M4A:
+                    return probeMp4(channel);
+                case WAV:
+                    return probeWav(channel);
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    // ---- MP3 ----
+
+    // One decoded MPEG audio frame header
+    private static final class Frame {
+        final int bitrate;
+        final int sampleRate;
+        final int samples;
+        final int length;
+        final boolean mpeg1;
+        final boolean mono;
+
+        Frame(int header) {
+            int version = (header >> 19) & 3; // 0 = 2.5, 2 = 2, 3 = 1
+            int layer = 4 - ((header >> 17) & 3); // 1, 2 or 3
+            mpeg1 = version == 3;
+            bitrate = BITRATES[mpeg1 ? 0 : 1][layer - 1][(header >> 12) & 0xF] * 1000;
+            sampleRate = SAMPLE_RATES[(header >> 10) & 3] >> (version == 3 ? 0 : version == 2 ? 1 : 2);
+            int padding = (header >> 9) & 1;
+            mono = ((header >> 6) & 3) == 3;
+            if (layer == 1) {
+                samples = 384;
+                length = (12 * bitrate / sampleRate + padding) * 4;
+            } else {
+                samples = layer == 3 && !mpeg1 ? 576 : 1152;
+                length = samples / 8 * bitrate / sampleRate + padding;
+            }
+        }
+
+        static boolean isValid(int header) {
+            return (header & 0xFFE00000) == 0xFFE00000
+                    && ((header >> 19) & 3) != 1     // reserved version
+                    && ((header >> 17) & 3) != 0     // reserved layer
+                    && ((header >> 12) & 0xF) != 0   // free format
+                    && ((header >> 12) & 0xF) != 0xF // bad bitrate
+                    && ((header >> 10) & 3) != 3;    // reserved sample rate
+        }
+    }
+
+    private static long probeMp3(FileChannel channel, byte[] start) throws IOException {
+        long offset = 0;
+        if (start.length >= 10 && start[0] == 'I' && start[1] == 'D' && start[2] == '3') {
+            // Tag size excludes the 10-byte header and the optional 10-byte footer
+            offset = 10 + TagReader.syncsafe(start, 6) + ((start[5] & 0x10) != 0 ? 10 : 0);
+        }
+        long end = channel.size();
+        if (end >= 128) {
+            ByteBuffer tail = TagReader.read(channel, end - 128, 3);
+            if (tail.remaining() == 3 && tail.get(0) == 'T' && tail.get(1) == 'A' && tail.get(2) == 'G') end -= 128;
+        }
+
+        long first = findFrame(channel, offset);
+        if (first < 0) return -1;
+        ByteBuffer buf = TagReader.read(channel, first, 4 + 36 + 18);
+        Frame frame = new Frame(buf.getInt(0));
+
+        long frames = vbrHeaderFrames(buf, frame);
+        if (frames > 0) return frames * frame.samples * 1000 / frame.sampleRate;
+        return scanFrames(channel, first, end);
+    }
+
+    // Position of the first frame header at or after from whose next frame also looks valid, or -1
+    private static long findFrame(FileChannel channel, long from) throws IOException {
+        ByteBuffer buf = TagReader.read(channel, from, SYNC_SEARCH_BYTES);
+        for (int i = 0; i + 4 <= buf.limit(); i++) {
+            if ((buf.get(i) & 0xFF) != 0xFF) continue;
+            int header = buf.getInt(i);
+            if (!Frame.isValid(header)) continue;
+            int next = i + new Frame(header).length;
+            // A lone sync pattern inside other data is not a frame
+            if (next + 4 <= buf.limit() && !Frame.isValid(buf.getInt(next))) continue;
+            return from + i;
+        }
+        return -1;
+    }
+
+    // Frame count from a Xing/Info or VBRI header in the first frame, or -1
+    private static long vbrHeaderFrames(ByteBuffer buf, Frame frame) {
+        // Xing sits after the side information, whose size depends on version and channels
+        int xing = 4 + (frame.mpeg1 ? (frame.mono ? 17 : 32) : (frame.mono ? 9 : 17));
+        if (buf.limit() >= xing + 12 && (ascii(buf, xing, "Xing") || ascii(buf, xing, "Info"))) {
+            int flags = buf.getInt(xing + 4);
+            return (flags & 1) != 0 ? buf.getInt(xing + 8) & 0xFFFFFFFFL : -1;
+        }
+        int vbri = 4 + 32;
+        if (buf.limit() >= vbri + 18 && ascii(buf, vbri, "VBRI")) {
+            return buf.getInt(vbri + 14) & 0xFFFFFFFFL;
+        }
+        return -1;
+    }
+
+    private static long scanFrames(FileChannel channel, long first, long end) throws IOException {
+        long pos = first;
+        long samples = 0;
+        long frames = 0;
+        int sampleRate = 0;
+        int firstBitrate = -1;
+        boolean constant = true;
+        ByteBuffer buf = ByteBuffer.allocate(0);
+        long bufStart = 0;
+
+        while (pos + 4 <= end) {
+            if (pos < bufStart || pos + 4 > bufStart + buf.limit()) {
+                buf = TagReader.read(channel, pos, (int) Math.min(SCAN_BUFFER_BYTES, end - pos));
+                bufStart = pos;
+                if (buf.limit() < 4) break;
+            }
+            int header = buf.getInt((int) (pos - bufStart));
+            if (!Frame.isValid(header)) break;
+            Frame frame = new Frame(header);
+            if (frame.length <= 0) break;
+
+            if (firstBitrate < 0) {
+                firstBitrate = frame.bitrate;
+                sampleRate = frame.sampleRate;
+            }
+            constant &= frame.bitrate == firstBitrate;
+            frames++;
+            samples += frame.samples;
+            pos += frame.length;
+
+            // Same bitrate so far: a CBR file, whose length follows from its size
+            if (frames == CBR_CHECK_FRAMES && constant) {
+                return (end - first) * 8 * 1000 / firstBitrate;
+            }
+        }
+        return frames == 0 ? -1 : samples * 1000 / sampleRate;
+    }
+
+    // ---- MP4 ----
+
+    private static long probeMp4(FileChannel channel) throws IOException {
+        long[] moov = TagReader.findAtom(channel, 0, channel.size(), "moov");
+        if (moov == null) return -1;
+        long[] mvhd = TagReader.findAtom(channel, moov[0], moov[1], "mvhd");
+        if (mvhd == null) return -1;
+
+        ByteBuffer buf = TagReader.read(channel, mvhd[0], 32);
+        if (buf.remaining() < 20) return -1;
+        long timescale;
+        long duration;
+        if (buf.get(0) == 1) {
+            // Version 1: 64-bit creation and modification times and duration
+            if (buf.remaining() < 32) return -1;
+            timescale = buf.getInt(20) & 0xFFFFFFFFL;
+            duration = buf.getLong(24);
+        } else {
+            timescale = buf.getInt(12) & 0xFFFFFFFFL;
+            duration = buf.getInt(16) & 0xFFFFFFFFL;
+        }
+        return timescale == 0 || duration < 0 ? -1 : duration * 1000 / timescale;
+    }
+
+    // ---- WAV ----
+
+    private static long probeWav(FileChannel channel) throws IOException {
+        long pos = 12;
+        long end = channel.size();
+        long byteRate = 0;
+        while (pos + 8 <= end) {
+            ByteBuffer header = TagReader.read(channel, pos, 20).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.remaining() < 8) return -1;
+            long size = header.getInt(4) & 0xFFFFFFFFL;
+            if (ascii(header, 0, "fmt ") && header.remaining() >= 20) {
+                // Format, channels and sample rate come first
+                byteRate = header.getInt(16) & 0xFFFFFFFFL;
+            } else if (ascii(header, 0, "data")) {
+                if (byteRate == 0) return -1;
+                // Streamed writers leave the size at 0 or 0xFFFFFFFF
+                long available = end - pos - 8;
+                long dataSize = size == 0 || size > available ? available : size;
+                return dataSize * 1000 / byteRate;
+            }
+            // Chunks are padded to an even length
+            pos += 8 + size + (size & 1);
+        }
+        return -1;
+    }
+
+    private static boolean ascii(ByteBuffer buf, int offset, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (buf.get(offset + i) != expected.charAt(i)) return false;
+        }
+        return true;
+    }
+}
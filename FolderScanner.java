@@ -0,0 +1,133 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Walks a folder tree with one fork-join task per directory. Files that have an audio
+// extension and matching magic bytes are handed to onBatch in groups of batchSize,
+// from pool threads, while the walk continues. Symbolic links to directories are not followed.
+final class FolderScanner {
+
+    private static final int PARALLELISM = 8;
+
+    private final Path root;
+    private final int batchSize;
+    private final Consumer<List<File>> onBatch;
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final AtomicInteger directoriesScanned = new AtomicInteger();
+    private final AtomicInteger filesFound = new AtomicInteger();
+    private final List<File> pending = new ArrayList<>();
+
+    FolderScanner(Path root, int batchSize, Consumer<List<File>> onBatch) {
+        this.root = root;
+        this.batchSize = batchSize;
+        this.onBatch = onBatch;
+    }
+
+    // Blocks until the walk completes or is cancelled; returns false if it was cancelled.
+    boolean scan() {
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            pool.invoke(new DirectoryTask(root));
+        } finally {
+            pool.shutdown();
+        }
+        flush();
+        return !cancelled.get();
+    }
+
+    void cancel() {
+        cancelled.set(true);
+    }
+
+    boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    int getDirectoriesScanned() {
+        return directoriesScanned.get();
+    }
+
+    int getFilesFound() {
+        return filesFound.get();
+    }
+
+    private void found(Path file) {
+        List<File> batch = null;
+        synchronized (pending) {
+            pending.add(file.toFile());
+            if (pending.size() >= batchSize) {
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+        }
+        filesFound.incrementAndGet();
+        if (batch != null) onBatch.accept(batch);
+    }
+
+    private void flush() {
+        List<File> batch;
+        synchronized (pending) {
+            if (pending.isEmpty() || cancelled.get()) return;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        onBatch.accept(batch);
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path dir;
+
+        DirectoryTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) return;
+
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (cancelled.get()) return;
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        subdirectories.add(new DirectoryTask(entry));
+                    } else if (isAudioFile(entry, attrs)) {
+                        found(entry);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                System.err.println("Skipping unreadable folder " + dir + ": " + e.getMessage());
+            }
+            directoriesScanned.incrementAndGet();
+            invokeAll(subdirectories);
+        }
+    }
+
+    private static boolean isAudioFile(Path file, BasicFileAttributes attrs) {
+        Path name = file.getFileName();
+        if (name == null || name.toString().startsWith(".")) return false;
+        if (attrs.isSymbolicLink()) {
+            if (!Files.isRegularFile(file)) return false;
+        } else if (!attrs.isRegularFile() || attrs.size() == 0) {
+            return false;
+        }
+        return AudioFormats.hasAudioExtension(name.toString()) && AudioFormats.sniff(file) != AudioFormats.Format.UNKNOWN;
+    }
+}
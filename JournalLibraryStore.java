@@ -0,0 +1,440 @@
+package com.example;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Library persistence as a snapshot plus an append-only journal of LibraryChange records.
+//
+//   library.snapshot  full state, replaced atomically (write tmp, fsync, rename)
+//   library.journal   [magic][generation] then [length][crc32][payload] records
+//
+// A journal is only replayed when its generation matches the snapshot, so a crash between
+// the snapshot rename and the journal reset cannot apply the same records twice. A torn
+// or corrupt tail record is dropped and the journal is truncated back to the last good one.
+//
+// Snapshot v2 layout (varints unless noted, CRC32 of everything before it at the end):
+//   magic(int) version(int) generation(long)
+//   dictionary: count, then per path [shared prefix bytes][suffix length][suffix UTF-8]
+//               in sorted order, so sibling files in one folder store only their names
+//   songs:      count, dictionary ids
+//   playlists:  count, then per playlist [name length][name UTF-8][count][dictionary ids]
+// The reader loads the file in one read and decodes every path once; songs and playlists share
+// those strings. It is not memory-mapped: on Windows a mapping blocks replacing the snapshot.
+final class JournalLibraryStore implements LibraryStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x41555253; // "AURS"
+    private static final int JOURNAL_MAGIC = 0x4155524a;  // "AURJ"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_HEADER_SIZE = 16;
+    private static final int JOURNAL_HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final Path dir;
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path legacyFile;
+    private final LibraryData data = new LibraryData();
+
+    private FileChannel journal;
+    private long generation = 0;
+    private int journalRecords = 0;
+
+    JournalLibraryStore(Path dir, Path legacyFile) {
+        this.dir = dir;
+        this.snapshotFile = dir.resolve("library.snapshot");
+        this.journalFile = dir.resolve("library.journal");
+        this.legacyFile = legacyFile;
+    }
+
+    @Override
+    public synchronized LibraryData load() throws IOException {
+        Files.createDirectories(dir);
+        data.clear();
+        generation = 0;
+        journalRecords = 0;
+
+        if (Files.exists(snapshotFile)) {
+            readSnapshot();
+        } else if (!Files.exists(journalFile) && legacyFile != null && Files.exists(legacyFile)) {
+            migrateLegacy();
+            return data;
+        }
+
+        replayJournal();
+        return data;
+    }
+
+    @Override
+    public synchronized void append(List<LibraryChange> changes) throws IOException {
+        if (changes.isEmpty()) return;
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(changes.size() * 64);
+        DataOutputStream out = new DataOutputStream(batch);
+        CRC32 crc = new CRC32();
+        for (LibraryChange change : changes) {
+            byte[] payload = encode(change);
+            crc.reset();
+            crc.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        }
+
+        FileChannel channel = openJournal();
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+
+        for (LibraryChange change : changes) {
+            data.apply(change);
+        }
+        journalRecords += changes.size();
+
+        if (journalRecords >= Math.max(COMPACT_MIN_RECORDS, data.size())) {
+            // The batch is already durable, so a failed compaction must not fail the append;
+            // the journal stays over the threshold and the next append tries again
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("Failed to compact library journal: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void compact() throws IOException {
+        Files.createDirectories(dir);
+        long nextGeneration = generation + 1;
+
+        Path tmp = dir.resolve("library.snapshot.tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(fos, 1 << 16);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            writeSnapshot(new DataOutputStream(checked), nextGeneration);
+            new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+            buffered.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        closeJournal();
+        generation = nextGeneration;
+        try (FileChannel channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(journalHeader());
+            channel.force(false);
+        }
+        journalRecords = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeJournal();
+    }
+
+    // Snapshot
+
+    private void writeSnapshot(DataOutputStream out, long snapshotGeneration) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(snapshotGeneration);
+
+        Set<String> unique = new HashSet<>(data.getSongs());
+        for (Set<String> playlist : data.getPlaylists().values()) {
+            unique.addAll(playlist);
+        }
+        String[] dictionary = unique.toArray(new String[0]);
+        Arrays.sort(dictionary);
+
+        Map<String, Integer> ids = new HashMap<>(dictionary.length * 2);
+        writeVarInt(out, dictionary.length);
+        byte[] previous = new byte[0];
+        for (int i = 0; i < dictionary.length; i++) {
+            ids.put(dictionary[i], i);
+            byte[] bytes = dictionary[i].getBytes(StandardCharsets.UTF_8);
+            int shared = commonPrefix(previous, bytes);
+            writeVarInt(out, shared);
+            writeVarInt(out, bytes.length - shared);
+            out.write(bytes, shared, bytes.length - shared);
+            previous = bytes;
+        }
+
+        writeVarInt(out, data.getSongs().size());
+        for (String path : data.getSongs()) {
+            writeVarInt(out, ids.get(path));
+        }
+
+        writeVarInt(out, data.getPlaylists().size());
+        for (Map.Entry<String, Set<String>> entry : data.getPlaylists().entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, name.length);
+            out.write(name);
+            writeVarInt(out, entry.getValue().size());
+            for (String path : entry.getValue()) {
+                writeVarInt(out, ids.get(path));
+            }
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        if (buffer.remaining() < SNAPSHOT_HEADER_SIZE || buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a library snapshot: " + snapshotFile);
+        }
+        int version = buffer.getInt();
+        if (version == 1) {
+            readSnapshotV1();
+            return;
+        }
+        if (version != SNAPSHOT_VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(0).limit(buffer.limit() - 4);
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Library snapshot checksum mismatch: " + snapshotFile);
+        }
+        buffer.limit(buffer.limit() - 4);
+
+        try {
+            readSnapshotV2(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated library snapshot: " + snapshotFile, e);
+        }
+    }
+
+    private void readSnapshotV2(ByteBuffer in) {
+        generation = in.getLong();
+
+        String[] dictionary = new String[readVarInt(in)];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < dictionary.length; i++) {
+            int shared = readVarInt(in);
+            int suffix = readVarInt(in);
+            if (shared + suffix > scratch.length) {
+                scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, shared + suffix));
+            }
+            in.get(scratch, shared, suffix);
+            dictionary[i] = new String(scratch, 0, shared + suffix, StandardCharsets.UTF_8);
+        }
+
+        int songCount = readVarInt(in);
+        for (int i = 0; i < songCount; i++) {
+            data.addSong(dictionary[readVarInt(in)]);
+        }
+
+        int playlistCount = readVarInt(in);
+        for (int i = 0; i < playlistCount; i++) {
+            byte[] nameBytes = new byte[readVarInt(in)];
+            in.get(nameBytes);
+            Set<String> playlist = data.addPlaylist(new String(nameBytes, StandardCharsets.UTF_8));
+            int size = readVarInt(in);
+            for (int j = 0; j < size; j++) {
+                playlist.add(dictionary[readVarInt(in)]);
+            }
+        }
+    }
+
+    private void readSnapshotV1() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            in.skipBytes(8);
+            generation = in.readLong();
+
+            int songCount = in.readInt();
+            for (int i = 0; i < songCount; i++) {
+                data.apply(LibraryChange.songAdded(in.readUTF()));
+            }
+
+            int playlistCount = in.readInt();
+            for (int i = 0; i < playlistCount; i++) {
+                String name = in.readUTF();
+                data.apply(LibraryChange.playlistCreated(name));
+                int size = in.readInt();
+                for (int j = 0; j < size; j++) {
+                    data.apply(LibraryChange.playlistSongAdded(name, in.readUTF()));
+                }
+            }
+        }
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int max = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < max && a[i] == b[i]) i++;
+        return i;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IndexOutOfBoundsException("Malformed varint");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void migrateLegacy() throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(legacyFile)))) {
+            List<String> songPaths = (List<String>) ois.readObject();
+            for (String path : songPaths) {
+                data.apply(LibraryChange.songAdded(path));
+            }
+
+            Map<String, List<String>> playlistData = (Map<String, List<String>>) ois.readObject();
+            for (Map.Entry<String, List<String>> entry : playlistData.entrySet()) {
+                data.apply(LibraryChange.playlistCreated(entry.getKey()));
+                for (String path : entry.getValue()) {
+                    data.apply(LibraryChange.playlistSongAdded(entry.getKey(), path));
+                }
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable legacy data file: " + legacyFile, e);
+        }
+        compact();
+    }
+
+    // Journal
+
+    private FileChannel openJournal() throws IOException {
+        if (journal == null) {
+            Files.createDirectories(dir);
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // A compaction that failed after replacing the snapshot leaves the old journal behind;
+            // records appended to it would be discarded as stale on the next load
+            if (journal.size() < JOURNAL_HEADER_SIZE || !hasCurrentHeader(journal)) {
+                journal.truncate(0);
+                journal.write(journalHeader(), 0);
+            }
+            journal.position(journal.size());
+        }
+        return journal;
+    }
+
+    private boolean hasCurrentHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        if (channel.read(header, 0) < JOURNAL_HEADER_SIZE) return false;
+        return header.getInt(0) == JOURNAL_MAGIC && header.getLong(4) == generation;
+    }
+
+    private void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private ByteBuffer journalHeader() {
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC).putLong(generation).flip();
+        return header;
+    }
+
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalFile)) return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+        if (buffer.remaining() < JOURNAL_HEADER_SIZE || buffer.getInt() != JOURNAL_MAGIC) {
+            System.err.println("Discarding unreadable library journal");
+            resetJournal();
+            return;
+        }
+        if (buffer.getLong() != generation) {
+            // Left over from an interrupted compaction; the snapshot already contains it.
+            resetJournal();
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        int goodOffset = buffer.position();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE || length > buffer.remaining()) break;
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) break;
+
+            try {
+                data.apply(decode(payload));
+            } catch (IOException e) {
+                break;
+            }
+            goodOffset = buffer.position();
+            journalRecords++;
+        }
+
+        if (goodOffset < buffer.limit()) {
+            System.err.println("Dropping " + (buffer.limit() - goodOffset) + " bytes of torn library journal");
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                channel.truncate(goodOffset);
+                channel.force(false);
+            }
+        }
+    }
+
+    private void resetJournal() throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(journalHeader());
+            channel.force(false);
+        }
+    }
+
+    private static byte[] encode(LibraryChange change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(change.type.ordinal());
+        if (change.hasPlaylist()) out.writeUTF(change.playlist);
+        if (change.hasPath()) out.writeUTF(change.path);
+        return bytes.toByteArray();
+    }
+
+    private static LibraryChange decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        LibraryChange.Type[] types = LibraryChange.Type.values();
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= types.length) throw new IOException("Unknown journal record " + ordinal);
+
+        switch (types[ordinal]) {
+            case SONG_ADDED:
+                return LibraryChange.songAdded(in.readUTF());
+            case SONG_REMOVED:
+                return LibraryChange.songRemoved(in.readUTF());
+            case PLAYLIST_CREATED:
+                return LibraryChange.playlistCreated(in.readUTF());
+            case PLAYLIST_DELETED:
+                return LibraryChange.playlistDeleted(in.readUTF());
+            case PLAYLIST_SONG_ADDED:
+                return LibraryChange.playlistSongAdded(in.readUTF(), in.readUTF());
+            case PLAYLIST_SONG_REMOVED:
+                return LibraryChange.playlistSongRemoved(in.readUTF(), in.readUTF());
+            default:
+                throw new IOException("Unknown journal record " + ordinal);
+        }
+    }
+}
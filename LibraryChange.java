@@ -0,0 +1,57 @@
+package com.example;
+
+import java.util.Objects;
+
+final class LibraryChange {
+
+    enum Type {
+        SONG_ADDED, SONG_REMOVED, PLAYLIST_CREATED, PLAYLIST_DELETED, PLAYLIST_SONG_ADDED, PLAYLIST_SONG_REMOVED
+    }
+
+    final Type type;
+    final String playlist;
+    final String path;
+
+    private LibraryChange(Type type, String playlist, String path) {
+        this.type = type;
+        this.playlist = playlist;
+        this.path = path;
+    }
+
+    static LibraryChange songAdded(String path) {
+        return new LibraryChange(Type.SONG_ADDED, null, Objects.requireNonNull(path));
+    }
+
+    static LibraryChange songRemoved(String path) {
+        return new LibraryChange(Type.SONG_REMOVED, null, Objects.requireNonNull(path));
+    }
+
+    static LibraryChange playlistCreated(String playlist) {
+        return new LibraryChange(Type.PLAYLIST_CREATED, Objects.requireNonNull(playlist), null);
+    }
+
+    static LibraryChange playlistDeleted(String playlist) {
+        return new LibraryChange(Type.PLAYLIST_DELETED, Objects.requireNonNull(playlist), null);
+    }
+
+    static LibraryChange playlistSongAdded(String playlist, String path) {
+        return new LibraryChange(Type.PLAYLIST_SONG_ADDED, Objects.requireNonNull(playlist), Objects.requireNonNull(path));
+    }
+
+    static LibraryChange playlistSongRemoved(String playlist, String path) {
+        return new LibraryChange(Type.PLAYLIST_SONG_REMOVED, Objects.requireNonNull(playlist), Objects.requireNonNull(path));
+    }
+
+    boolean hasPlaylist() {
+        return playlist != null;
+    }
+
+    boolean hasPath() {
+        return path != null;
+    }
+
+    @Override
+    public String toString() {
+        return type + (hasPlaylist() ? " [" + playlist + "]" : "") + (hasPath() ? " " + path : "");
+    }
+}
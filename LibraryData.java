@@ -0,0 +1,69 @@
+package com.example;
+
+import java.util.*;
+
+// In-memory image of the persisted library: song paths in insertion order and
+// playlists by name. Both the journal replay and live appends go through apply().
+final class LibraryData {
+
+    private final Set<String> songs = new LinkedHashSet<>();
+    private final Map<String, Set<String>> playlists = new LinkedHashMap<>();
+
+    Set<String> getSongs() {
+        return Collections.unmodifiableSet(songs);
+    }
+
+    Map<String, Set<String>> getPlaylists() {
+        return Collections.unmodifiableMap(playlists);
+    }
+
+    boolean isEmpty() {
+        return songs.isEmpty() && playlists.isEmpty();
+    }
+
+    int size() {
+        int size = songs.size() + playlists.size();
+        for (Set<String> playlist : playlists.values()) {
+            size += playlist.size();
+        }
+        return size;
+    }
+
+    void clear() {
+        songs.clear();
+        playlists.clear();
+    }
+
+    // Bulk loading paths used by snapshot readers
+    void addSong(String path) {
+        songs.add(path);
+    }
+
+    Set<String> addPlaylist(String name) {
+        return playlists.computeIfAbsent(name, k -> new LinkedHashSet<>());
+    }
+
+    void apply(LibraryChange change) {
+        switch (change.type) {
+            case SONG_ADDED:
+                songs.add(change.path);
+                break;
+            case SONG_REMOVED:
+                songs.remove(change.path);
+                break;
+            case PLAYLIST_CREATED:
+                playlists.putIfAbsent(change.playlist, new LinkedHashSet<>());
+                break;
+            case PLAYLIST_DELETED:
+                playlists.remove(change.playlist);
+                break;
+            case PLAYLIST_SONG_ADDED:
+                playlists.computeIfAbsent(change.playlist, k -> new LinkedHashSet<>()).add(change.path);
+                break;
+            case PLAYLIST_SONG_REMOVED:
+                Set<String> playlist = playlists.get(change.playlist);
+                if (playlist != null) playlist.remove(change.path);
+                break;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// A sorted copy of an ObservableList of tracks. Collation keys are computed once per track and
+// each column's sorted order is cached once built, then kept up to date through the source
+// list's change events, so switching columns copies a cached order instead of sorting again.
+// Used on the FX thread only.
+final class LibrarySort {
+
+    enum Column {
+        ADDED("Date added"), TITLE("Title"), ARTIST("Artist"), ALBUM("Album"), DURATION("Duration");
+
+        private final String label;
+
+        Column(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // Edits larger than this drop the cached orders instead of updating them one track at a time
+    private static final int BULK_EDIT = 256;
+
+    private static final int TITLE = 1;
+    private static final int ARTIST = 2;
+    private static final int ALBUM = 4;
+
+    // Each collation key is made the first time a comparison needs it; most ties are decided
+    // by the first field, so the other two are rarely computed
+    private static final class Keys {
+        final File file;
+        final long added;
+        final long duration;
+        int count;
+        int collated;
+        CollationKey title;
+        CollationKey artist;
+        CollationKey album;
+
+        Keys(File file, long added, long duration, int count) {
+            this.file = file;
+            this.added = added;
+            this.duration = duration;
+            this.count = count;
+        }
+    }
+
+    private final ObservableList<File> tracks;
+    private final Function<File, TrackTags> tagsOf;
+    private final ToLongFunction<File> durationOf;
+    private final Collator collator = Collator.getInstance();
+    private final Map<File, Keys> keys = new HashMap<>();
+    private final Map<Column, List<File>> orders = new EnumMap<>(Column.class);
+    private final ObservableList<File> view = FXCollections.observableArrayList();
+    private Column column = Column.ADDED;
+    private boolean descending = false;
+    private long nextAdded = 0;
+
+    LibrarySort(ObservableList<File> tracks, Function<File, TrackTags> tagsOf, ToLongFunction<File> durationOf) {
+        this.tracks = tracks;
+        this.tagsOf = tagsOf;
+        this.durationOf = durationOf;
+        // Case differences alone do not decide the order
+        collator.setStrength(Collator.SECONDARY);
+        for (File f : tracks) {
+            add(f, null);
+        }
+        view.setAll(order(column));
+        tracks.addListener((ListChangeListener<File>) this::onChanged);
+    }
+
+    // The tracks in the selected order; changes with the source list
+    ObservableList<File> view() {
+        return view;
+    }
+
+    Column getColumn() {
+        return column;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    void sortBy(Column column, boolean descending) {
+        if (column == this.column && descending == this.descending) return;
+        this.column = column;
+        this.descending = descending;
+        showOrder();
+    }
+
+    // Re-reads the tags and durations of tracks indexed after they were added
+    void update(Collection<File> files) {
+        Set<File> changed = new LinkedHashSet<>(files);
+        changed.retainAll(keys.keySet());
+        if (changed.size() > BULK_EDIT) {
+            for (File f : changed) {
+                Keys old = keys.get(f);
+                keys.put(f, newKeys(f, old.added, old.count));
+            }
+            // Only the added order does not depend on tags or durations
+            orders.keySet().retainAll(EnumSet.of(Column.ADDED));
+            if (column != Column.ADDED) showOrder();
+            return;
+        }
+        // All changed tracks are taken out before any goes back in, so insertions only compare
+        // against keys that match the current tags
+        for (File f : changed) {
+            Keys old = keys.get(f);
+            for (int i = 0; i < old.count; i++) {
+                removeFromOrders(f, old);
+            }
+        }
+        for (File f : changed) {
+            Keys updated = newKeys(f, keys.get(f).added, keys.get(f).count);
+            keys.put(f, updated);
+            for (int i = 0; i < updated.count; i++) {
+                insertIntoOrders(f, updated);
+            }
+        }
+    }
+
+    private void onChanged(ListChangeListener.Change<? extends File> change) {
+        boolean bulk = false;
+        while (change.next()) {
+            if (change.getRemovedSize() + change.getAddedSize() > BULK_EDIT) bulk = true;
+        }
+        change.reset();
+
+        if (bulk) {
+            // Cheaper to sort the current column once than to insert tracks one by one
+            orders.clear();
+        }
+        while (change.next()) {
+            List<? extends File> removed = change.getRemoved();
+            List<Long> replacedAdded = new ArrayList<>();
+            for (File f : removed) {
+                Keys k = keys.get(f);
+                if (k == null) continue;
+                if (!bulk) removeFromOrders(f, k);
+                if (--k.count > 0) continue;
+                keys.remove(f);
+                // A track replaced in place, e.g. after a move on disk, keeps its place in the added order
+                if (change.wasReplaced()) replacedAdded.add(k.added);
+            }
+            List<? extends File> added = change.getAddedSubList();
+            for (int i = 0; i < added.size(); i++) {
+                Long keepAdded = i < replacedAdded.size() && replacedAdded.size() == added.size() ? replacedAdded.get(i) : null;
+                Keys k = add(added.get(i), keepAdded);
+                if (!bulk) insertIntoOrders(added.get(i), k);
+            }
+        }
+        if (bulk) showOrder();
+    }
+
+    private Keys add(File file, Long keepAdded) {
+        Keys k = keys.get(file);
+        if (k == null) {
+            k = newKeys(file, keepAdded != null ? keepAdded : nextAdded++, 0);
+            keys.put(file, k);
+        }
+        k.count++;
+        return k;
+    }
+
+    private void showOrder() {
+        List<File> order = order(column);
+        if (!descending) {
+            view.setAll(order);
+        } else {
+            List<File> reversed = new ArrayList<>(order);
+            Collections.reverse(reversed);
+            view.setAll(reversed);
+        }
+    }
+
+    private List<File> order(Column column) {
+        List<File> order = orders.get(column);
+        if (order == null) {
+            order = new ArrayList<>(tracks);
+            order.sort(comparator(column));
+            orders.put(column, order);
+        }
+        return order;
+    }
+
+    private void insertIntoOrders(File file, Keys k) {
+        for (Map.Entry<Column, List<File>> e : orders.entrySet()) {
+            List<File> order = e.getValue();
+            int pos = Collections.binarySearch(order, file, comparator(e.getKey(), file, k));
+            if (pos < 0) pos = -pos - 1;
+            order.add(pos, file);
+            if (e.getKey() == column) view.add(descending ? order.size() - 1 - pos : pos, file);
+        }
+    }
+
+    private void removeFromOrders(File file, Keys k) {
+        for (Map.Entry<Column, List<File>> e : orders.entrySet()) {
+            List<File> order = e.getValue();
+            int pos = Collections.binarySearch(order, file, comparator(e.getKey(), file, k));
+            // Fields collated lazily after the tags changed can put the old keys out of order;
+            // only the added sequence decides a match, so a hit is always this track
+            if (pos < 0) pos = order.indexOf(file);
+            if (pos < 0) continue;
+            order.remove(pos);
+            if (e.getKey() == column) view.remove(descending ? order.size() - pos : pos);
+        }
+    }
+
+    private Comparator<File> comparator(Column column) {
+        return (a, b) -> compare(column, keys.get(a), keys.get(b));
+    }
+
+    // Looks up keys from the map except for one track, whose keys may not be (or no longer be) stored
+    private Comparator<File> comparator(Column column, File track, Keys trackKeys) {
+        return (a, b) -> compare(column, a == track ? trackKeys : keys.get(a), b == track ? trackKeys : keys.get(b));
+    }
+
+    // Each column breaks ties with the others, then by the order tracks were added
+    private int compare(Column column, Keys a, Keys b) {
+        int c = 0;
+        switch (column) {
+            case TITLE:
+                c = compareField(TITLE, a, b);
+                if (c == 0) c = compareField(ARTIST, a, b);
+                if (c == 0) c = compareField(ALBUM, a, b);
+                break;
+            case ARTIST:
+                c = compareField(ARTIST, a, b);
+                if (c == 0) c = compareField(ALBUM, a, b);
+                if (c == 0) c = compareField(TITLE, a, b);
+                break;
+            case ALBUM:
+                c = compareField(ALBUM, a, b);
+                if (c == 0) c = compareField(ARTIST, a, b);
+                if (c == 0) c = compareField(TITLE, a, b);
+                break;
+            case DURATION:
+                // Unknown lengths sort last
+                c = a.duration < 0 || b.duration < 0 ? Boolean.compare(a.duration < 0, b.duration < 0) : Long.compare(a.duration, b.duration);
+                if (c == 0) c = compareField(TITLE, a, b);
+                break;
+            case ADDED:
+                break;
+        }
+        return c != 0 ? c : Long.compare(a.added, b.added);
+    }
+
+    // Missing tags sort last
+    private int compareField(int field, Keys a, Keys b) {
+        CollationKey x = collate(field, a);
+        CollationKey y = collate(field, b);
+        if (x == null) return y == null ? 0 : 1;
+        if (y == null) return -1;
+        return x.compareTo(y);
+    }
+
+    private Keys newKeys(File file, long added, int count) {
+        return new Keys(file, added, durationOf.applyAsLong(file), count);
+    }
+
+    private CollationKey collate(int field, Keys k) {
+        if ((k.collated & field) == 0) {
+            TrackTags tags = tagsOf.apply(k.file);
+            if (field == TITLE) {
+                String name = k.file.getName();
+                int dot = name.lastIndexOf('.');
+                String title = tags != null && tags.title != null ? tags.title : dot > 0 ? name.substring(0, dot) : name;
+                k.title = collator.getCollationKey(title);
+            } else if (field == ARTIST) {
+                k.artist = tags == null || tags.artist == null ? null : collator.getCollationKey(tags.artist);
+            } else {
+                k.album = tags == null || tags.album == null ? null : collator.getCollationKey(tags.album);
+            }
+            k.collated |= field;
+        }
+        return field == TITLE ? k.title : field == ARTIST ? k.artist : k.album;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+interface LibraryStore extends Closeable {
+
+    // Callers must treat the returned data as read-only.
+    LibraryData load() throws IOException;
+
+    void append(List<LibraryChange> changes) throws IOException;
+
+    default void append(LibraryChange change) throws IOException {
+        append(Collections.singletonList(change));
+    }
+
+    // Rewrites the snapshot from the current state and starts an empty journal.
+    void compact() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,73 @@
+package com.example;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Checks library files for existence on a small I/O pool so startup never waits on stat calls
+// (slow on network mounts). Missing files are kept in the library and only marked unavailable.
+final class LibraryValidator implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 256;
+    private static final int MAX_THREADS = 16;
+
+    private final ExecutorService pool;
+    private final Set<File> unavailable = ConcurrentHashMap.newKeySet();
+
+    LibraryValidator() {
+        int threads = Math.min(MAX_THREADS, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "aurora-validator-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.pool = executor;
+    }
+
+    boolean isUnavailable(File file) {
+        return unavailable.contains(file);
+    }
+
+    void markUnavailable(File file) {
+        unavailable.add(file);
+    }
+
+    // onChanged receives, per chunk, the files whose availability flipped. It runs on a pool thread.
+    void validate(List<File> files, Consumer<List<File>> onChanged) {
+        List<File> snapshot = new ArrayList<>(files);
+        for (int from = 0; from < snapshot.size(); from += CHUNK_SIZE) {
+            List<File> chunk = snapshot.subList(from, Math.min(from + CHUNK_SIZE, snapshot.size()));
+            pool.execute(() -> {
+                List<File> changed = checkChunk(chunk);
+                if (!changed.isEmpty()) onChanged.accept(changed);
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private List<File> checkChunk(List<File> chunk) {
+        List<File> changed = new ArrayList<>();
+        for (File file : chunk) {
+            if (Thread.currentThread().isInterrupted()) break;
+            if (file.getPath().startsWith("URL: ")) continue;
+
+            if (file.exists()) {
+                if (unavailable.remove(file)) changed.add(file);
+            } else {
+                if (unavailable.add(file)) changed.add(file);
+            }
+        }
+        return changed;
+    }
+}
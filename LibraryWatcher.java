@@ -0,0 +1,325 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Watches library root folders (recursively) and reports created and deleted paths in
+// coalesced batches: a batch is delivered once the tree has been quiet for QUIET_MILLIS,
+// or at the latest MAX_DELAY_MILLIS after its first event, so copying thousands of files
+// produces a handful of batches. A rescan is requested at startup, on overflow and every
+// RESCAN_MINUTES as a fallback for file systems that do not report changes (e.g. network shares).
+// Files the user removed from the library are remembered and never reported as created again
+// until the user adds them back or they are deleted from disk.
+final class LibraryWatcher implements AutoCloseable {
+
+    interface Listener {
+        // Created entries are audio files; deleted entries may be files or whole folders
+        void onChanges(Set<Path> created, Set<Path> deleted);
+
+        void onRescan(Path root);
+    }
+
+    private static final long QUIET_MILLIS = 500;
+    private static final long MAX_DELAY_MILLIS = 3000;
+    private static final long RESCAN_MINUTES = 30;
+
+    private final Path rootsFile;
+    private final Path removedFile;
+    private final Listener listener;
+    private final Set<Path> roots = new CopyOnWriteArraySet<>();
+    private final Set<Path> removed = ConcurrentHashMap.newKeySet();
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private final Set<Path> created = new LinkedHashSet<>();
+    private final Set<Path> deleted = new LinkedHashSet<>();
+    private final ScheduledExecutorService rescans;
+    private WatchService watchService;
+    private Thread thread;
+    private long firstEventAt = 0;
+
+    LibraryWatcher(Path rootsFile, Listener listener) {
+        this.rootsFile = rootsFile;
+        this.removedFile = rootsFile.resolveSibling("removed.txt");
+        this.listener = listener;
+        this.rescans = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "aurora-library-rescan");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            System.err.println("Folder watching unavailable, relying on periodic rescans: " + e.getMessage());
+        }
+        loadRoots();
+        loadRemoved();
+
+        thread = new Thread(this::run, "aurora-library-watcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        // The first rescan picks up files added or deleted while the player was closed
+        rescans.scheduleWithFixedDelay(() -> roots.forEach(this::requestRescan), 0, RESCAN_MINUTES, TimeUnit.MINUTES);
+    }
+
+    void watch(Path root) {
+        Path normalized = root.toAbsolutePath().normalize();
+        for (Path existing : roots) {
+            if (normalized.startsWith(existing)) return;
+        }
+        roots.removeIf(existing -> existing.startsWith(normalized));
+        roots.add(normalized);
+        saveRoots();
+        if (watchService != null) {
+            rescans.execute(() -> registerTree(normalized));
+        }
+    }
+
+    // The user removed these tracks from the library: rescans and events must not bring them back
+    void exclude(Collection<Path> paths) {
+        if (removed.addAll(normalize(paths))) saveRemoved();
+    }
+
+    // The user added these tracks again
+    void include(Collection<Path> paths) {
+        if (removed.removeAll(normalize(paths))) saveRemoved();
+    }
+
+    boolean isExcluded(Path path) {
+        return removed.contains(path.toAbsolutePath().normalize());
+    }
+
+    @Override
+    public void close() {
+        rescans.shutdownNow();
+        if (thread != null) thread.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void run() {
+        for (Path root : roots) {
+            if (watchService != null) registerTree(root);
+        }
+        if (watchService == null) return;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handle(key);
+                }
+                if (shouldDispatch(key == null)) {
+                    dispatch();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void handle(WatchKey key) {
+        Path dir = keys.get(key);
+        if (dir == null) {
+            key.cancel();
+            return;
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                requestRescan(rootOf(dir));
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    registerTree(path);
+                    collectTree(path);
+                } else {
+                    recordCreated(path);
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                recordDeleted(path);
+            }
+        }
+
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    private synchronized void recordCreated(Path path) {
+        if (firstEventAt == 0) firstEventAt = System.currentTimeMillis();
+        deleted.remove(path);
+        created.add(path);
+    }
+
+    private synchronized void recordDeleted(Path path) {
+        if (firstEventAt == 0) firstEventAt = System.currentTimeMillis();
+        // Created and removed within one window (e.g. a temp file): nothing to report
+        if (!created.remove(path)) {
+            deleted.add(path);
+        }
+    }
+
+    private synchronized boolean shouldDispatch(boolean quiet) {
+        if (firstEventAt == 0) return false;
+        return quiet || System.currentTimeMillis() - firstEventAt >= MAX_DELAY_MILLIS;
+    }
+
+    private void dispatch() {
+        Set<Path> createdBatch;
+        Set<Path> deletedBatch;
+        synchronized (this) {
+            createdBatch = new LinkedHashSet<>(created);
+            deletedBatch = new LinkedHashSet<>(deleted);
+            created.clear();
+            deleted.clear();
+            firstEventAt = 0;
+        }
+
+        // Checked at dispatch time so files still being copied when created have their headers by now
+        createdBatch.removeIf(path -> isExcluded(path)
+                || !Files.isRegularFile(path)
+                || !AudioFormats.hasAudioExtension(path.getFileName().toString())
+                || AudioFormats.sniff(path) == AudioFormats.Format.UNKNOWN);
+
+        // Removed tracks that are gone from disk need not be remembered any more
+        boolean forgotten = false;
+        for (Path path : deletedBatch) {
+            Path normalized = path.toAbsolutePath().normalize();
+            forgotten |= removed.removeIf(p -> p.startsWith(normalized));
+        }
+        if (forgotten) saveRemoved();
+
+        if (!createdBatch.isEmpty() || !deletedBatch.isEmpty()) {
+            listener.onChanges(createdBatch, deletedBatch);
+        }
+    }
+
+    // Rescans run on their own thread so a long walk never stalls event handling
+    private void requestRescan(Path root) {
+        if (root == null || rescans.isShutdown()) return;
+        rescans.execute(() -> {
+            // An unmounted share must not look like a folder whose files were all deleted
+            if (Files.isDirectory(root)) listener.onRescan(root);
+        });
+    }
+
+    private Path rootOf(Path dir) {
+        for (Path root : roots) {
+            if (dir.startsWith(root)) return root;
+        }
+        return null;
+    }
+
+    private void registerTree(Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    keys.put(dir.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE), dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.err.println("Could not watch " + start + ": " + e.getMessage());
+        }
+    }
+
+    // A folder moved or copied in arrives as one event; its contents are reported individually
+    private void collectTree(Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) recordCreated(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Could not scan " + start + ": " + e.getMessage());
+        }
+    }
+
+    private void loadRoots() {
+        if (!Files.exists(rootsFile)) return;
+        try {
+            for (String line : Files.readAllLines(rootsFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) roots.add(Paths.get(line.trim()));
+            }
+        } catch (IOException | InvalidPathException e) {
+            System.err.println("Failed to load watched folders: " + e.getMessage());
+        }
+    }
+
+    private void loadRemoved() {
+        if (!Files.exists(removedFile)) return;
+        try {
+            for (String line : Files.readAllLines(removedFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                Path path = Paths.get(line.trim());
+                // Deleted while the player was closed
+                if (Files.exists(path)) removed.add(path);
+            }
+        } catch (IOException | InvalidPathException e) {
+            System.err.println("Failed to load removed tracks: " + e.getMessage());
+        }
+    }
+
+    private void saveRoots() {
+        try {
+            writeLines(rootsFile, roots);
+        } catch (IOException e) {
+            System.err.println("Failed to save watched folders: " + e.getMessage());
+        }
+    }
+
+    private synchronized void saveRemoved() {
+        try {
+            writeLines(removedFile, removed);
+        } catch (IOException e) {
+            System.err.println("Failed to save removed tracks: " + e.getMessage());
+        }
+    }
+
+    private static void writeLines(Path file, Collection<Path> paths) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path path : paths) {
+            lines.add(path.toString());
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<Path> normalize(Collection<Path> paths) {
+        List<Path> normalized = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            normalized.add(path.toAbsolutePath().normalize());
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Applies LibraryChange records to a LibraryStore on a background thread.
+// Changes submitted within COALESCE_MILLIS of the first pending one are written as one batch,
+// so a burst of edits costs a single journal append and fsync.
+final class LibraryWriter implements AutoCloseable {
+
+    private static final long COALESCE_MILLIS = 250;
+    private static final long RETRY_MILLIS = 2000;
+    private static final long SLOW_FLUSH_MILLIS = 200;
+
+    private final LibraryStore store;
+    private final ScheduledExecutorService executor;
+    private final List<LibraryChange> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed = false;
+
+    // Write latency, reported with slow writes; used on the writer thread only
+    private long flushCount = 0;
+    private long maxFlushNanos = 0;
+    private long totalFlushNanos = 0;
+
+    LibraryWriter(LibraryStore store) {
+        this.store = store;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "aurora-library-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void submit(List<LibraryChange> changes) {
+        if (changes.isEmpty()) return;
+        synchronized (pending) {
+            if (closed) throw new IllegalStateException("Library writer is closed");
+            pending.addAll(changes);
+            if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(this::flushPending, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Blocks until everything submitted so far is on disk.
+    void flush() {
+        if (executor.isShutdown()) return;
+        try {
+            executor.submit(this::flushPending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Failed to flush library: " + e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (pending) {
+            if (closed) return;
+            closed = true;
+        }
+        flush();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close library store: " + e.getMessage());
+        }
+    }
+
+    private void flushPending() {
+        List<LibraryChange> batch;
+        synchronized (pending) {
+            scheduledFlush = null;
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        long start = System.nanoTime();
+        try {
+            store.append(batch);
+        } catch (IOException e) {
+            System.err.println("Failed to save data: " + e.getMessage());
+            synchronized (pending) {
+                pending.addAll(0, batch);
+                if (scheduledFlush == null && !closed) {
+                    scheduledFlush = executor.schedule(this::flushPending, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        totalFlushNanos += elapsed;
+        flushCount++;
+
+        if (elapsed > TimeUnit.MILLISECONDS.toNanos(SLOW_FLUSH_MILLIS)) {
+            System.err.println(String.format("Slow library write: %d change(s) in %d ms (%d writes, avg %.1f ms, max %d ms)",
+                    batch.size(), elapsed / 1_000_000, flushCount, totalFlushNanos / 1_000_000.0 / flushCount, maxFlushNanos / 1_000_000));
+        }
+    }
+}
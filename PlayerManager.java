@@ -0,0 +1,116 @@
+package com.example;
+
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+// Owns every native MediaPlayer the app opens: the current track, the preloaded next track
+// and one fading out. Players are created and disposed here only, so skipping quickly never
+// leaves an orphaned decoder behind; going over those three live players is reported as a leak.
+// FX thread only.
+final class PlayerManager implements AutoCloseable {
+
+    // Current, preloaded next and fading out
+    private static final int EXPECTED_LIVE = 3;
+
+    private final Set<MediaPlayer> live = new HashSet<>();
+    private MediaPlayer loading;
+    private MediaPlayer preloaded;
+    private Object preloadedKey;
+
+    private long createdCount = 0;
+    private long reusedCount = 0;
+    private long cancelledCount = 0;
+    private int peakLiveCount = 0;
+
+    // Opens a player for immediate playback. A previous one that is still loading has been
+    // superseded and is cancelled, whether or not the caller released it.
+    MediaPlayer open(String source) {
+        if (loading != null && isLoading(loading)) {
+            release(loading);
+        }
+        loading = create(source);
+        return loading;
+    }
+
+    // Starts opening the track expected next; key identifies it for takePreloaded().
+    // The key is kept even if opening fails so the same track is not retried on every tick.
+    void preload(Object key, String source) {
+        discardPreloaded();
+        preloadedKey = key;
+        if (source == null) return;
+        try {
+            preloaded = create(source);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to preload " + key + ": " + e.getMessage());
+        }
+    }
+
+    boolean hasPreload() {
+        return preloadedKey != null;
+    }
+
+    boolean isPreloadReady() {
+        return preloaded != null && preloaded.getStatus() == MediaPlayer.Status.READY;
+    }
+
+    // Hands over the preloaded player if it was opened for key, otherwise disposes it
+    MediaPlayer takePreloaded(Object key) {
+        MediaPlayer player = preloaded;
+        boolean matches = key.equals(preloadedKey);
+        preloaded = null;
+        preloadedKey = null;
+
+        if (player == null) return null;
+        if (!matches || player.getStatus() == MediaPlayer.Status.HALTED) {
+            release(player);
+            return null;
+        }
+        reusedCount++;
+        loading = player;
+        return player;
+    }
+
+    void discardPreloaded() {
+        release(preloaded);
+        preloaded = null;
+        preloadedKey = null;
+    }
+
+    void release(MediaPlayer player) {
+        if (player == null || !live.remove(player)) return;
+        if (isLoading(player)) cancelledCount++;
+        if (player == loading) loading = null;
+        player.stop();
+        player.dispose();
+    }
+
+    @Override
+    public void close() {
+        for (MediaPlayer player : new ArrayList<>(live)) {
+            release(player);
+        }
+        preloaded = null;
+        preloadedKey = null;
+    }
+
+    private MediaPlayer create(String source) {
+        MediaPlayer player = new MediaPlayer(new Media(source));
+        live.add(player);
+        createdCount++;
+        // Reported once per new high, so a leak shows up without a line per track
+        if (live.size() > EXPECTED_LIVE && live.size() > peakLiveCount) {
+            System.err.println("Media players not released: " + live.size() + " live, " + createdCount + " opened, "
+                    + reusedCount + " reused from preload, " + cancelledCount + " cancelled while loading");
+        }
+        peakLiveCount = Math.max(peakLiveCount, live.size());
+        return player;
+    }
+
+    private static boolean isLoading(MediaPlayer player) {
+        return player.getStatus() == MediaPlayer.Status.UNKNOWN;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+// Running total length of an ObservableList of tracks, kept in sync through its change events
+// like TrackIndex. Each track's duration is looked up once when it is added and again only when
+// update() reports it changed. Tracks of unknown length (-1) are counted separately.
+final class PlaylistDuration {
+
+    private static final class Entry {
+        long duration;
+        int count;
+    }
+
+    private final ToLongFunction<File> durationOf;
+    private final Map<File, Entry> entries = new HashMap<>();
+    private long totalMillis = 0;
+    private int unknownCount = 0;
+
+    PlaylistDuration(ObservableList<File> tracks, ToLongFunction<File> durationOf) {
+        this.durationOf = durationOf;
+        for (File f : tracks) {
+            add(f);
+        }
+        tracks.addListener((ListChangeListener<File>) change -> {
+            while (change.next()) {
+                for (File f : change.getRemoved()) {
+                    remove(f);
+                }
+                for (File f : change.getAddedSubList()) {
+                    add(f);
+                }
+            }
+        });
+    }
+
+    long getTotalMillis() {
+        return totalMillis;
+    }
+
+    int getUnknownCount() {
+        return unknownCount;
+    }
+
+    // Looks up the durations of the given tracks again; true if the total changed
+    boolean update(Set<File> changed) {
+        boolean updated = false;
+        // Walks whichever side is smaller, so a big batch costs at most one pass over the list
+        if (changed.size() < entries.size()) {
+            for (File f : changed) {
+                Entry entry = entries.get(f);
+                if (entry != null) updated |= refresh(f, entry);
+            }
+        } else {
+            for (Map.Entry<File, Entry> e : entries.entrySet()) {
+                if (changed.contains(e.getKey())) updated |= refresh(e.getKey(), e.getValue());
+            }
+        }
+        return updated;
+    }
+
+    private boolean refresh(File file, Entry entry) {
+        long duration = durationOf.applyAsLong(file);
+        if (duration == entry.duration) return false;
+        count(entry.duration, -entry.count);
+        entry.duration = duration;
+        count(duration, entry.count);
+        return true;
+    }
+
+    private void add(File file) {
+        Entry entry = entries.get(file);
+        if (entry == null) {
+            entry = new Entry();
+            entry.duration = durationOf.applyAsLong(file);
+            entries.put(file, entry);
+        }
+        entry.count++;
+        count(entry.duration, 1);
+    }
+
+    private void remove(File file) {
+        Entry entry = entries.get(file);
+        if (entry == null) return;
+        count(entry.duration, -1);
+        if (--entry.count == 0) entries.remove(file);
+    }
+
+    private void count(long duration, int times) {
+        if (duration < 0) {
+            unknownCount += times;
+        } else {
+            totalMillis += duration * times;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reads progress out of downloader and encoder output lines:
+//   yt-dlp --newline:  "[download]  42.3% of 3.45MiB at 1.20MiB/s ETA 00:03"
+//   ffmpeg header:     "  Duration: 00:03:25.12, start: 0.000000, bitrate: 128 kb/s"
+//   ffmpeg -progress:  "out_time_us=12345678"
+final class ProgressParser {
+
+    private static final Pattern DOWNLOAD = Pattern.compile("^\\[download]\\s+(\\d+(?:\\.\\d+)?)%(?:.*ETA\\s+(\\S+))?");
+    private static final Pattern DURATION = Pattern.compile("Duration:\\s*(\\d+):(\\d{2}):(\\d{2}(?:\\.\\d+)?)");
+    private static final String OUT_TIME = "out_time_us=";
+    // Older ffmpeg builds only report out_time_ms, which despite its name is also in microseconds
+    private static final String OUT_TIME_LEGACY = "out_time_ms=";
+
+    private ProgressParser() {
+    }
+
+    // 0-100, or -1 if the line is not a yt-dlp progress line
+    static double downloadPercent(String line) {
+        Matcher m = DOWNLOAD.matcher(line);
+        return m.find() ? Double.parseDouble(m.group(1)) : -1;
+    }
+
+    // "00:03" style ETA from a yt-dlp progress line, or null
+    static String downloadEta(String line) {
+        Matcher m = DOWNLOAD.matcher(line);
+        return m.find() ? m.group(2) : null;
+    }
+
+    // Input duration from ffmpeg's stream header, or -1
+    static long durationMicros(String line) {
+        Matcher m = DURATION.matcher(line);
+        if (!m.find()) return -1;
+        double seconds = Long.parseLong(m.group(1)) * 3600 + Long.parseLong(m.group(2)) * 60 + Double.parseDouble(m.group(3));
+        return (long) (seconds * 1_000_000);
+    }
+
+    // Encoded position from an ffmpeg -progress line, or -1
+    static long outTimeMicros(String line) {
+        String value;
+        if (line.startsWith(OUT_TIME)) {
+            value = line.substring(OUT_TIME.length());
+        } else if (line.startsWith(OUT_TIME_LEGACY)) {
+            value = line.substring(OUT_TIME_LEGACY.length());
+        } else {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            // "N/A" before the first frame
+            return -1;
+        }
+    }
+}
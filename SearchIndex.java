@@ -0,0 +1,203 @@
+package com.example;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Prefix index over the words of each track's title, artist, album, file name and folder names,
+// kept in sync with an ObservableList of tracks through its change events. Every query word must
+// be a prefix of some word of the track. Used on the FX thread only.
+//
+// Tracks are numbered and each word keeps an array of numbers, so a query is a few bit set
+// operations. Removed tracks leave stale numbers behind until enough pile up to renumber.
+final class SearchIndex {
+
+    private static final int MIN_COMPACT = 1024;
+
+    private static final class Entry {
+        String[] tokens;
+        int id;
+        int count;
+    }
+
+    private static final class Posting {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final Function<File, TrackTags> tagsOf;
+    private final Map<File, Entry> entries = new HashMap<>();
+    // Sorted so that all words starting with a prefix form one contiguous range
+    private final NavigableMap<String, Posting> postings = new TreeMap<>();
+    private int nextId = 0;
+    private int staleIds = 0;
+    // Bumped whenever tracks are renumbered
+    private int generation = 0;
+
+    SearchIndex(ObservableList<File> tracks, Function<File, TrackTags> tagsOf) {
+        this.tagsOf = tagsOf;
+        for (File f : tracks) {
+            add(f);
+        }
+        tracks.addListener((ListChangeListener<File>) change -> {
+            while (change.next()) {
+                for (File f : change.getRemoved()) {
+                    remove(f);
+                }
+                for (File f : change.getAddedSubList()) {
+                    add(f);
+                }
+            }
+        });
+    }
+
+    // Re-reads the words of tracks whose tags became known after they were added
+    void update(Collection<File> files) {
+        for (File f : files) {
+            Entry entry = entries.get(f);
+            if (entry == null) continue;
+            String[] tokens = tokensOf(f);
+            if (Arrays.equals(tokens, entry.tokens)) continue;
+            entry.tokens = tokens;
+            staleIds++;
+            post(entry);
+        }
+        compactIfStale();
+    }
+
+    // Matches every word of the query, or null when the query has no words. Tracks added or
+    // changed after the search are checked word by word, so the result stays exact.
+    Predicate<File> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return null;
+
+        BitSet matches = null;
+        for (String term : terms) {
+            BitSet hits = new BitSet(nextId);
+            for (Posting posting : withPrefix(term).values()) {
+                for (int i = 0; i < posting.size; i++) {
+                    hits.set(posting.ids[i]);
+                }
+            }
+            if (matches == null) {
+                matches = hits;
+            } else {
+                matches.and(hits);
+            }
+            if (matches.isEmpty()) break;
+        }
+
+        BitSet result = matches;
+        int searchedIds = nextId;
+        int searchedGeneration = generation;
+        return file -> {
+            Entry entry = entries.get(file);
+            if (entry == null) return false;
+            if (entry.id < searchedIds && generation == searchedGeneration) return result.get(entry.id);
+            return matchesAll(entry.tokens, terms);
+        };
+    }
+
+    private void add(File file) {
+        Entry entry = entries.get(file);
+        if (entry == null) {
+            entry = new Entry();
+            entry.tokens = tokensOf(file);
+            entries.put(file, entry);
+            post(entry);
+        }
+        entry.count++;
+    }
+
+    private void remove(File file) {
+        Entry entry = entries.get(file);
+        if (entry == null || --entry.count > 0) return;
+        entries.remove(file);
+        staleIds++;
+        compactIfStale();
+    }
+
+    // Gives the entry a fresh number; its previous one, if any, becomes stale
+    private void post(Entry entry) {
+        entry.id = nextId++;
+        for (String token : entry.tokens) {
+            postings.computeIfAbsent(token, t -> new Posting()).add(entry.id);
+        }
+    }
+
+    private void compactIfStale() {
+        if (staleIds < MIN_COMPACT || staleIds < entries.size()) return;
+        postings.clear();
+        nextId = 0;
+        staleIds = 0;
+        generation++;
+        for (Entry entry : entries.values()) {
+            post(entry);
+        }
+    }
+
+    private SortedMap<String, Posting> withPrefix(String prefix) {
+        return postings.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    private static boolean matchesAll(String[] tokens, List<String> terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private String[] tokensOf(File file) {
+        Set<String> tokens = new LinkedHashSet<>();
+        TrackTags tags = tagsOf.apply(file);
+        if (tags != null) {
+            addTokens(tokens, tags.title);
+            addTokens(tokens, tags.artist);
+            addTokens(tokens, tags.album);
+        }
+        addTokens(tokens, file.getName());
+        // Library folders are commonly laid out as Artist/Album/track
+        File parent = file.getParentFile();
+        for (int i = 0; i < 2 && parent != null; i++) {
+            addTokens(tokens, parent.getName());
+            parent = parent.getParentFile();
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void addTokens(Set<String> tokens, String text) {
+        if (text != null) tokens.addAll(tokenize(text));
+    }
+
+    // Lower-cased runs of letters and digits
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
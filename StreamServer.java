@@ -0,0 +1,167 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves files that are still being written over a loopback HTTP endpoint, so MediaPlayer can
+// start on a download long before it finishes. A reader that catches up with the writer waits
+// for more data until the stream is marked complete or failed.
+final class StreamServer implements AutoCloseable {
+
+    static final class Stream {
+        // Re-pointed when the finished file is moved into the cache
+        volatile File file;
+        volatile boolean complete = false;
+        volatile boolean failed = false;
+
+        Stream(File file) {
+            this.file = file;
+        }
+    }
+
+    private static final long POLL_MILLIS = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // A player handed the URL just before the download finished can still connect this long after
+    private static final long RETIRE_MILLIS = 30_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    StreamServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "aurora-stream-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/stream/", this::handle);
+        server.start();
+    }
+
+    // Returns the http:// URL the stream can be opened from
+    String publish(Stream stream) {
+        String id = Integer.toString(nextId.incrementAndGet());
+        streams.put(id, stream);
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/stream/" + id + ".mp3";
+    }
+
+    // Drops a stream that has failed, or that completed and moved into the cache
+    void retire(Stream stream) {
+        if (stream.failed) {
+            streams.values().remove(stream);
+        } else {
+            CompletableFuture.delayedExecutor(RETIRE_MILLIS, TimeUnit.MILLISECONDS, executor)
+                    .execute(() -> streams.values().remove(stream));
+        }
+    }
+
+    @Override
+    public void close() {
+        streams.values().forEach(stream -> stream.failed = true);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String name = exchange.getRequestURI().getPath().substring("/stream/".length());
+            int dot = name.indexOf('.');
+            Stream stream = streams.get(dot < 0 ? name : name.substring(0, dot));
+            if (stream == null || stream.failed) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            long start = parseRangeStart(exchange.getRequestHeaders().getFirst("Range"));
+            exchange.getResponseHeaders().set("Content-Type", "audio/mpeg");
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+
+            // Opened through NIO, which on Windows shares delete access, so the finished file can
+            // still be moved into the cache while a player is reading it
+            try (FileChannel in = open(stream)) {
+                if (stream.complete) {
+                    long length = in.size();
+                    if (length == 0) {
+                        exchange.sendResponseHeaders(204, -1);
+                        return;
+                    }
+                    if (start >= length) {
+                        exchange.getResponseHeaders().set("Content-Range", "bytes */" + length);
+                        exchange.sendResponseHeaders(416, -1);
+                        return;
+                    }
+                    if (start > 0) {
+                        exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (length - 1) + "/" + length);
+                    }
+                    exchange.sendResponseHeaders(start > 0 ? 206 : 200, length - start);
+                } else {
+                    // Length unknown while downloading: the whole stream, chunked, since a 206
+                    // without a Content-Range is not a valid answer to a range request
+                    start = 0;
+                    exchange.sendResponseHeaders(200, 0);
+                }
+                copy(stream, in, start, exchange.getResponseBody());
+            }
+        } catch (IOException e) {
+            // Player closed the connection, e.g. after a seek or when the track changed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The file may be moved into the cache between requests; the new path is published right after
+    private static FileChannel open(Stream stream) throws IOException, InterruptedException {
+        try {
+            return FileChannel.open(stream.file.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            Thread.sleep(POLL_MILLIS);
+            return FileChannel.open(stream.file.toPath(), StandardOpenOption.READ);
+        }
+    }
+
+    private static void copy(Stream stream, FileChannel in, long start, OutputStream out)
+            throws IOException, InterruptedException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = start;
+        while (!stream.failed) {
+            // Read complete before reading the data, so nothing written after the check is missed
+            boolean complete = stream.complete;
+            buffer.clear();
+            int n = in.read(buffer, position);
+            if (n > 0) {
+                out.write(buffer.array(), 0, n);
+                position += n;
+            } else if (complete) {
+                break;
+            } else {
+                out.flush();
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+
+    private static long parseRangeStart(String range) {
+        if (range == null || !range.startsWith("bytes=")) return 0;
+        int dash = range.indexOf('-');
+        try {
+            return dash > 6 ? Long.parseLong(range.substring(6, dash).trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
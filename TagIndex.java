@@ -0,0 +1,201 @@
+package com.example;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Tags and durations of library files, read by TagReader and DurationProbe on a small background
+// pool and persisted to one file. Entries are keyed by path and remember the file's size and
+// modification time, so files that have not changed are skipped on the next run instead of being
+// parsed again. Entries for files that left the library are dropped by retainOnly().
+final class TagIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x41555254; // "AURT"
+    private static final int VERSION = 2;
+    private static final int CHUNK_SIZE = 128;
+    private static final int MAX_THREADS = 4;
+
+    private static final class Entry {
+        final long size;
+        final long modified;
+        final TrackTags tags;
+        final long duration;
+
+        Entry(long size, long modified, TrackTags tags, long duration) {
+            this.size = size;
+            this.modified = modified;
+            this.tags = tags;
+            this.duration = duration;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService pool;
+    private final AtomicInteger pendingChunks = new AtomicInteger();
+    private volatile boolean dirty = false;
+
+    TagIndex(Path file) {
+        this.file = file;
+        int threads = Math.min(MAX_THREADS, Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "aurora-tags-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.pool = executor;
+        load();
+    }
+
+    // The last indexed tags for a track, or null. Does not touch the disk.
+    TrackTags get(File track) {
+        Entry entry = entries.get(track.getAbsolutePath());
+        return entry == null || entry.tags.isEmpty() ? null : entry.tags;
+    }
+
+    // Length in milliseconds from the last index run, or -1. Does not touch the disk.
+    long durationMillis(File track) {
+        Entry entry = entries.get(track.getAbsolutePath());
+        return entry == null ? -1 : entry.duration;
+    }
+
+    // onIndexed receives, per chunk, the files whose tags or duration were (re)read. It runs on a pool thread.
+    void index(List<File> files, Consumer<List<File>> onIndexed) {
+        List<File> snapshot = new ArrayList<>(files);
+        for (int from = 0; from < snapshot.size(); from += CHUNK_SIZE) {
+            List<File> chunk = snapshot.subList(from, Math.min(from + CHUNK_SIZE, snapshot.size()));
+            pendingChunks.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    List<File> changed = indexChunk(chunk);
+                    if (!changed.isEmpty()) onIndexed.accept(changed);
+                } finally {
+                    // Written once per run rather than per chunk
+                    if (pendingChunks.decrementAndGet() == 0 && dirty) save();
+                }
+            });
+        }
+    }
+
+    // Forgets every file not among tracks; the next save leaves them out
+    void retainOnly(Collection<File> tracks) {
+        Set<String> keys = new HashSet<>(tracks.size() * 2);
+        for (File track : tracks) {
+            keys.add(track.getAbsolutePath());
+        }
+        if (entries.keySet().retainAll(keys)) dirty = true;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dirty) save();
+    }
+
+    private List<File> indexChunk(List<File> chunk) {
+        List<File> changed = new ArrayList<>();
+        for (File track : chunk) {
+            if (Thread.currentThread().isInterrupted()) break;
+            if (TrackRegistry.isUrl(track)) continue;
+
+            String key = track.getAbsolutePath();
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(track.toPath(), BasicFileAttributes.class);
+            } catch (IOException | InvalidPathException e) {
+                continue;
+            }
+            long modified = attrs.lastModifiedTime().toMillis();
+            Entry existing = entries.get(key);
+            if (existing != null && existing.size == attrs.size() && existing.modified == modified) continue;
+
+            TrackTags tags;
+            try {
+                tags = TagReader.read(track.toPath());
+            } catch (IOException | RuntimeException e) {
+                // Unreadable or malformed: remembered as untagged until the file changes
+                tags = null;
+            }
+            long duration;
+            try {
+                duration = DurationProbe.probeMillis(track.toPath());
+            } catch (IOException | RuntimeException e) {
+                duration = -1;
+            }
+            entries.put(key, new Entry(attrs.size(), modified, tags != null ? tags : new TrackTags(null, null, null), duration));
+            dirty = true;
+            if ((tags != null && !tags.isEmpty()) || duration >= 0) changed.add(track);
+        }
+        return changed;
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                // Also the case for version 1, which had no durations; every file is read again
+                System.err.println("Ignoring tag index with unknown format: " + file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                TrackTags tags = new TrackTags(readOptional(in), readOptional(in), readOptional(in));
+                entries.put(path, new Entry(size, modified, tags, in.readLong()));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load tag index: " + e.getMessage());
+        }
+    }
+
+    private synchronized void save() {
+        dirty = false;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue().size);
+                    out.writeLong(e.getValue().modified);
+                    writeOptional(out, e.getValue().tags.title);
+                    writeOptional(out, e.getValue().tags.artist);
+                    writeOptional(out, e.getValue().tags.album);
+                    out.writeLong(e.getValue().duration);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            System.err.println("Failed to save tag index: " + e.getMessage());
+        }
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        String value = in.readUTF();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeUTF(value == null ? "" : value);
+    }
+}
@@ -0,0 +1,357 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads title/artist/album straight from file headers with positional FileChannel reads, without
+// opening a MediaPlayer: ID3v2 (falling back to ID3v1) for MP3, the moov/udta/meta/ilst atoms
+// for MP4/M4A and the LIST/INFO chunk for WAV. Only headers and the tag blocks themselves are read.
+// readPicture() returns the raw embedded cover (APIC/PIC or covr) for the artwork cache.
+final class TagReader {
+
+    private static final int HEADER_BYTES = 16 * 1024;
+    private static final int MAX_TAG_BYTES = 64 * 1024;
+    private static final int MAX_ATOM_BYTES = 1024 * 1024;
+    private static final int MAX_TEXT_LENGTH = 512;
+    private static final int MAX_PICTURE_BYTES = 16 * 1024 * 1024;
+
+    private TagReader() {
+    }
+
+    static TrackTags read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] header = readHeader(channel);
+            switch (AudioFormats.sniff(header, header.length)) {
+                case MP3:
+                    return readId3(channel, header);
+                case M4A:
+                    return readMp4(channel);
+                case WAV:
+                    return readRiff(channel);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    // Encoded image bytes (usually JPEG or PNG), or null if the file has no embedded cover
+    static byte[] readPicture(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] header = readHeader(channel);
+            switch (AudioFormats.sniff(header, header.length)) {
+                case MP3:
+                    return readId3Picture(channel, header);
+                case M4A:
+                    return readMp4Picture(channel);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static byte[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = read(channel, 0, HEADER_BYTES);
+        byte[] bytes = new byte[header.remaining()];
+        header.get(bytes);
+        return bytes;
+    }
+
+    // ---- ID3 ----
+
+    private interface FrameVisitor {
+        // Returns false to stop walking
+        boolean visit(String id, byte[] tag, int data, int size);
+    }
+
+    private static TrackTags readId3(FileChannel channel, byte[] header) throws IOException {
+        byte[] tag = id3Tag(channel, header, MAX_TAG_BYTES);
+        if (tag != null) {
+            String[] values = new String[3];
+            walkId3(tag, (id, b, data, size) -> {
+                switch (id) {
+                    case "TIT2": case "TT2":
+                        values[0] = id3Text(b, data, size);
+                        break;
+                    case "TPE1": case "TP1":
+                        values[1] = id3Text(b, data, size);
+                        break;
+                    case "TALB": case "TAL":
+                        values[2] = id3Text(b, data, size);
+                        break;
+                }
+                return values[0] == null || values[1] == null || values[2] == null;
+            });
+            TrackTags tags = new TrackTags(values[0], values[1], values[2]);
+            if (!tags.isEmpty()) return tags;
+        }
+        return readId3v1(channel);
+    }
+
+    // APIC (v2.3/2.4) or PIC (v2.2); a front cover wins over any other picture
+    private static byte[] readId3Picture(FileChannel channel, byte[] header) throws IOException {
+        byte[] tag = id3Tag(channel, header, MAX_PICTURE_BYTES);
+        if (tag == null) return null;
+        byte[][] picture = new byte[1][];
+        walkId3(tag, (id, b, data, size) -> {
+            if (!id.equals("APIC") && !id.equals("PIC")) return true;
+            int end = data + size;
+            int encoding = b[data];
+            // v2.2 has a fixed 3-byte image format, later versions a NUL-terminated MIME type
+            int pos = id.equals("PIC") ? data + 4 : skipText(b, data + 1, end, 0);
+            if (pos >= end) return true;
+            int type = b[pos];
+            pos = skipText(b, pos + 1, end, encoding);
+            if (pos >= end) return true;
+            if (picture[0] == null || type == 3) {
+                picture[0] = Arrays.copyOfRange(b, pos, end);
+            }
+            return type != 3;
+        });
+        return picture[0];
+    }
+
+    // The whole ID3v2 tag (header included) when it fits in limit bytes, else null
+    private static byte[] id3Tag(FileChannel channel, byte[] header, int limit) throws IOException {
+        if (header.length < 10 || header[0] != 'I' || header[1] != 'D' || header[2] != '3') return null;
+        int tagSize = syncsafe(header, 6) + 10;
+        if (tagSize <= header.length) return Arrays.copyOf(header, tagSize);
+        if (header.length < HEADER_BYTES) return header;
+
+        ByteBuffer more = read(channel, 0, Math.min(tagSize, limit));
+        byte[] tag = new byte[more.remaining()];
+        more.get(tag);
+        return tag;
+    }
+
+    private static void walkId3(byte[] tag, FrameVisitor visitor) {
+        int version = tag[3];
+        int pos = 10;
+        if ((tag[5] & 0x40) != 0 && tag.length > 14) {
+            // Extended header: v2.4 size includes itself, v2.3 size excludes its 4-byte length
+            pos += version >= 4 ? syncsafe(tag, 10) : int32(tag, 10) + 4;
+        }
+
+        boolean shortIds = version == 2;
+        int headerSize = shortIds ? 6 : 10;
+        while (pos + headerSize <= tag.length) {
+            if (tag[pos] == 0) break; // padding
+            String id = new String(tag, pos, shortIds ? 3 : 4, StandardCharsets.ISO_8859_1);
+            int size = shortIds ? int24(tag, pos + 3) : version >= 4 ? syncsafe(tag, pos + 4) : int32(tag, pos + 4);
+            int data = pos + headerSize;
+            if (size <= 0 || data + size > tag.length) break;
+            if (!visitor.visit(id, tag, data, size)) break;
+            pos = data + size;
+        }
+    }
+
+    private static String id3Text(byte[] b, int offset, int length) {
+        if (length < 2) return null;
+        Charset charset;
+        switch (b[offset]) {
+            case 1: charset = StandardCharsets.UTF_16; break;
+            case 2: charset = StandardCharsets.UTF_16BE; break;
+            case 3: charset = StandardCharsets.UTF_8; break;
+            default: charset = StandardCharsets.ISO_8859_1; break;
+        }
+        return clean(new String(b, offset + 1, length - 1, charset));
+    }
+
+    // Position after a NUL-terminated string; UTF-16 strings end with two NUL bytes
+    private static int skipText(byte[] b, int pos, int end, int encoding) {
+        boolean wide = encoding == 1 || encoding == 2;
+        while (pos < end) {
+            if (wide) {
+                if (pos + 1 < end && b[pos] == 0 && b[pos + 1] == 0) return pos + 2;
+                pos += 2;
+            } else {
+                if (b[pos] == 0) return pos + 1;
+                pos++;
+            }
+        }
+        return end;
+    }
+
+    private static TrackTags readId3v1(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < 128) return null;
+        ByteBuffer buf = read(channel, size - 128, 128);
+        if (buf.remaining() < 128 || buf.get(0) != 'T' || buf.get(1) != 'A' || buf.get(2) != 'G') return null;
+        byte[] b = new byte[128];
+        buf.get(b);
+        return new TrackTags(latin1(b, 3, 30), latin1(b, 33, 30), latin1(b, 63, 30));
+    }
+
+    // ---- MP4 ----
+
+    private interface ItemVisitor {
+        // type is the 4-byte item name, value the payload of its "data" atom; false stops walking
+        boolean visit(byte[] type, byte[] value);
+    }
+
+    private static TrackTags readMp4(FileChannel channel) throws IOException {
+        String[] values = new String[3];
+        walkIlst(channel, MAX_ATOM_BYTES, (type, value) -> {
+            if ((type[0] & 0xFF) == 0xA9) {
+                String name = new String(type, 1, 3, StandardCharsets.ISO_8859_1);
+                String text = clean(new String(value, StandardCharsets.UTF_8));
+                if (name.equals("nam")) values[0] = text;
+                else if (name.equals("ART")) values[1] = text;
+                else if (name.equals("alb")) values[2] = text;
+            }
+            return true;
+        });
+        return new TrackTags(values[0], values[1], values[2]);
+    }
+
+    private static byte[] readMp4Picture(FileChannel channel) throws IOException {
+        byte[][] picture = new byte[1][];
+        walkIlst(channel, MAX_PICTURE_BYTES, (type, value) -> {
+            if (type[0] != 'c' || type[1] != 'o' || type[2] != 'v' || type[3] != 'r') return true;
+            picture[0] = value;
+            return false;
+        });
+        return picture[0];
+    }
+
+    private static void walkIlst(FileChannel channel, int limit, ItemVisitor visitor) throws IOException {
+        long[] moov = findAtom(channel, 0, channel.size(), "moov");
+        if (moov == null) return;
+        long[] udta = findAtom(channel, moov[0], moov[1], "udta");
+        if (udta == null) return;
+        long[] meta = findAtom(channel, udta[0], udta[1], "meta");
+        if (meta == null) return;
+        // meta is a full box: 4 bytes of version/flags before its children
+        long[] ilst = findAtom(channel, meta[0] + 4, meta[1], "ilst");
+        if (ilst == null || ilst[1] - ilst[0] > limit) return;
+
+        ByteBuffer buf = read(channel, ilst[0], (int) (ilst[1] - ilst[0]));
+        while (buf.remaining() >= 8) {
+            int start = buf.position();
+            int size = buf.getInt();
+            byte[] type = new byte[4];
+            buf.get(type);
+            if (size < 8 || start + size > buf.limit()) break;
+
+            byte[] value = ilstValue(buf, start + 8, start + size);
+            if (value != null && !visitor.visit(type, value)) break;
+            buf.position(start + size);
+        }
+    }
+
+    // The payload of the "data" atom inside an ilst item
+    private static byte[] ilstValue(ByteBuffer buf, int from, int to) {
+        if (to - from < 16) return null;
+        int size = buf.getInt(from);
+        if (size < 16 || from + size > to || buf.get(from + 4) != 'd' || buf.get(from + 5) != 'a') return null;
+        byte[] value = new byte[size - 16];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = buf.get(from + 16 + i);
+        }
+        return value;
+    }
+
+    // Returns {contentStart, end} of the first child atom called name within [from, to)
+    static long[] findAtom(FileChannel channel, long from, long to, String name) throws IOException {
+        long pos = from;
+        while (pos + 8 <= to) {
+            ByteBuffer header = read(channel, pos, 16);
+            if (header.remaining() < 8) return null;
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            int headerSize = 8;
+            if (size == 1 && header.remaining() >= 16) {
+                size = header.getLong(8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = to - pos;
+            }
+            if (size < headerSize) return null;
+
+            String type = new String(new byte[]{header.get(4), header.get(5), header.get(6), header.get(7)}, StandardCharsets.ISO_8859_1);
+            if (type.equals(name)) return new long[]{pos + headerSize, Math.min(pos + size, to)};
+            pos += size;
+        }
+        return null;
+    }
+
+    // ---- RIFF ----
+
+    private static TrackTags readRiff(FileChannel channel) throws IOException {
+        long pos = 12;
+        long end = channel.size();
+        while (pos + 8 <= end) {
+            ByteBuffer header = read(channel, pos, 12).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.remaining() < 8) return null;
+            long size = header.getInt(4) & 0xFFFFFFFFL;
+            boolean isList = header.get(0) == 'L' && header.get(1) == 'I' && header.get(2) == 'S' && header.get(3) == 'T';
+            if (isList && header.remaining() >= 12 && header.get(8) == 'I' && header.get(9) == 'N'
+                    && header.get(10) == 'F' && header.get(11) == 'O' && size <= MAX_ATOM_BYTES) {
+                return parseInfo(read(channel, pos + 12, (int) size - 4).order(ByteOrder.LITTLE_ENDIAN));
+            }
+            // Chunks are padded to an even length
+            pos += 8 + size + (size & 1);
+        }
+        return null;
+    }
+
+    private static TrackTags parseInfo(ByteBuffer buf) {
+        String title = null, artist = null, album = null;
+        while (buf.remaining() >= 8) {
+            byte[] id = new byte[4];
+            buf.get(id);
+            int size = buf.getInt();
+            if (size < 0 || size > buf.remaining()) break;
+            byte[] value = new byte[size];
+            buf.get(value);
+            if ((size & 1) == 1 && buf.hasRemaining()) buf.get();
+
+            String key = new String(id, StandardCharsets.ISO_8859_1);
+            if (key.equals("INAM")) title = clean(new String(value, StandardCharsets.UTF_8));
+            else if (key.equals("IART")) artist = clean(new String(value, StandardCharsets.UTF_8));
+            else if (key.equals("IPRD")) album = clean(new String(value, StandardCharsets.UTF_8));
+        }
+        return new TrackTags(title, artist, album);
+    }
+
+    // ---- helpers ----
+
+    static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - position)));
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) break;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static String latin1(byte[] b, int offset, int length) {
+        return clean(new String(b, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    // Cuts at the first NUL and returns null for blank values; a corrupt frame cannot yield a huge string
+    private static String clean(String s) {
+        int nul = s.indexOf('\0');
+        if (nul >= 0) s = s.substring(0, nul);
+        if (s.length() > MAX_TEXT_LENGTH) s = s.substring(0, MAX_TEXT_LENGTH);
+        s = s.trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    static int syncsafe(byte[] b, int offset) {
+        return (b[offset] & 0x7F) << 21 | (b[offset + 1] & 0x7F) << 14 | (b[offset + 2] & 0x7F) << 7 | (b[offset + 3] & 0x7F);
+    }
+
+    private static int int32(byte[] b, int offset) {
+        return (b[offset] & 0xFF) << 24 | (b[offset + 1] & 0xFF) << 16 | (b[offset + 2] & 0xFF) << 8 | (b[offset + 3] & 0xFF);
+    }
+
+    private static int int24(byte[] b, int offset) {
+        return (b[offset] & 0xFF) << 16 | (b[offset + 1] & 0xFF) << 8 | (b[offset + 2] & 0xFF);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+// Hash membership for an ObservableList of tracks, kept in sync through its change events,
+// so contains() is O(1) instead of a linear File.equals scan.
+final class TrackIndex {
+
+    private final Map<File, Integer> counts;
+
+    TrackIndex(ObservableList<File> tracks) {
+        counts = new HashMap<>(Math.max(16, tracks.size() * 2));
+        for (File f : tracks) {
+            add(f);
+        }
+        tracks.addListener((ListChangeListener<File>) change -> {
+            while (change.next()) {
+                for (File f : change.getRemoved()) {
+                    remove(f);
+                }
+                for (File f : change.getAddedSubList()) {
+                    add(f);
+                }
+            }
+        });
+    }
+
+    boolean contains(File file) {
+        return counts.containsKey(file);
+    }
+
+    int size() {
+        return counts.size();
+    }
+
+    private void add(File file) {
+        counts.merge(file, 1, Integer::sum);
+    }
+
+    private void remove(File file) {
+        counts.computeIfPresent(file, (f, n) -> n == 1 ? null : n - 1);
+    }
+}
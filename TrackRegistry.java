@@ -0,0 +1,60 @@
+package com.example;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One shared File per track, keyed by its normalized absolute path ("URL: ..." entries as-is).
+// Imports and loads go through intern() so the library and every playlist hold the same instance.
+final class TrackRegistry {
+
+    static final String URL_PREFIX = "URL: ";
+
+    private final Map<String, File> tracks = new ConcurrentHashMap<>();
+    // File collapses the "//" in "https://", so URL tracks remember their exact key here
+    private final Map<File, String> urlKeys = new ConcurrentHashMap<>();
+
+    File intern(File file) {
+        return tracks.computeIfAbsent(keyOf(file), k -> file);
+    }
+
+    File intern(String path) {
+        File existing = tracks.get(path);
+        if (existing != null) return existing;
+        if (path.startsWith(URL_PREFIX)) return internUrl(path.substring(URL_PREFIX.length()));
+        return intern(new File(path));
+    }
+
+    File internUrl(String url) {
+        return tracks.computeIfAbsent(URL_PREFIX + url, key -> {
+            File file = new File(key);
+            urlKeys.put(file, key);
+            return file;
+        });
+    }
+
+    // The URL a track was added from, or null for local files
+    String urlOf(File file) {
+        String key = urlKeys.get(file);
+        return key != null ? key.substring(URL_PREFIX.length()) : null;
+    }
+
+    int size() {
+        return tracks.size();
+    }
+
+    String keyOf(File file) {
+        String path = file.getPath();
+        if (path.startsWith(URL_PREFIX)) return urlKeys.getOrDefault(file, path);
+        try {
+            return file.toPath().toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    static boolean isUrl(File file) {
+        return file.getPath().startsWith(URL_PREFIX);
+    }
+}
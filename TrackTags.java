@@ -0,0 +1,25 @@
+package com.example;
+
+// Title, artist and album read from a file's own tags; any of them may be null
+final class TrackTags {
+
+    final String title;
+    final String artist;
+    final String album;
+
+    TrackTags(String title, String artist, String album) {
+        this.title = title;
+        this.artist = artist;
+        this.album = album;
+    }
+
+    boolean isEmpty() {
+        return title == null && artist == null && album == null;
+    }
+
+    // "Artist - Title", just the title, or fallback when the file has no title tag
+    String displayName(String fallback) {
+        if (title == null) return fallback;
+        return artist == null ? title : artist + " - " + title;
+    }
+}
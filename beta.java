@@ -1,9 +1,15 @@
 package com.example;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -17,6 +23,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.text.Font;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
@@ -24,7 +31,10 @@ import javafx.stage.Modality;
 import javafx.util.Duration;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
@@ -34,18 +44,53 @@ public class AuroraPlayer extends Application {
     private final ObservableList<File> allSongs = FXCollections.observableArrayList();
     private final ObservableList<File> currentPlaylist = FXCollections.observableArrayList();
     private final Map<String, ObservableList<File>> playlists = new HashMap<>();
-    private final Map<String, String> urlMappings = new HashMap<>();
+    private final TrackRegistry trackRegistry = new TrackRegistry();
+    private final TrackIndex libraryIndex = new TrackIndex(allSongs);
+    private final Map<String, TrackIndex> playlistIndexes = new HashMap<>();
+    private final Map<String, PlaylistDuration> playlistDurations = new HashMap<>();
     private String currentPlaylistName = null;
+    private final LibraryStore libraryStore = new JournalLibraryStore(Paths.get(DATA_DIR), Paths.get(DATA_FILE));
+    private final LibraryWriter libraryWriter = new LibraryWriter(libraryStore);
+    private final LibraryValidator libraryValidator = new LibraryValidator();
+    private final TagIndex tagIndex = new TagIndex(Paths.get(DATA_DIR, "tags.index"));
+    private final ArtworkCache artworkCache = new ArtworkCache(Paths.get(DATA_DIR, "artwork"), ALBUM_ART_SIZE);
+    private final SearchIndex searchIndex = new SearchIndex(allSongs, tagIndex::get);
+    private final LibrarySort librarySort = new LibrarySort(allSongs, tagIndex::get, tagIndex::durationMillis);
+    // The library as shown in the songs view: in the selected order, narrowed by the search box
+    private final FilteredList<File> visibleSongs = new FilteredList<>(librarySort.view());
+    // Tracks whose tags were read since the search and sort keys were last refreshed
+    private final List<File> pendingTagUpdates = new ArrayList<>();
+    private final PauseTransition tagUpdateDelay = new PauseTransition(TAG_UPDATE_DELAY);
+    private final LibraryWatcher libraryWatcher = createLibraryWatcher();
+    private final AudioCache audioCache = new AudioCache(Paths.get(DATA_DIR, "audio-cache"), AUDIO_CACHE_BYTES);
+    private final DownloadManager downloadManager = new DownloadManager(PARALLEL_DOWNLOADS, this::downloadToCache);
+    private StreamServer streamServer;
+    // URL whose stream should start once buffered; cleared when anything else is played (FX thread)
+    private String requestedStreamUrl;
 
     // Playback state
     private int currentIndex = 0;
     private MediaPlayer mediaPlayer;
+    private final PlayerManager players = new PlayerManager();
     private boolean isShuffleOn = false;
     private RepeatMode repeatMode = RepeatMode.OFF;
     private final List<Integer> shuffleOrder = new ArrayList<>();
     private int shuffleIndex = 0;
     private final Set<Integer> playedIndices = new HashSet<>();
-    private final AtomicBoolean isUpdatingProgress = new AtomicBoolean(false);
+    private TransitionMode transitionMode = TransitionMode.OFF;
+    private int crossfadeSeconds = CROSSFADE_STEPS[0];
+    // Crossfade: the outgoing player while it ramps down, driven by one timer
+    private MediaPlayer fadingOutPlayer;
+    private long fadeStartNanos;
+    private boolean isFadeStarting = false;
+    private Timeline crossfadeTimer;
+    // Next/prev clicks within SKIP_DEBOUNCE of each other open only the last target
+    private final PauseTransition skipDebounce = createSkipDebounce();
+    // Polls the current player's position; runs only while something is playing
+    private Timeline positionTicker;
+    private Stage downloadsStage;
+    private int displayedSecond = -1;
+    private final AtomicBoolean isRefreshPending = new AtomicBoolean(false);
 
     // UI Components
     private final Label trackTitle = new Label("Not Playing");
@@ -55,12 +100,22 @@ public class AuroraPlayer extends Application {
     private final Slider volumeSlider = new Slider(0, 1, 0.5);
     private final Label currentTimeLabel = new Label("0:00");
     private final Label totalTimeLabel = new Label("0:00");
-    private final ListView<String> contentView = new ListView<>();
+    private final TextField searchField = new TextField();
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    private final ComboBox<LibrarySort.Column> sortBox = new ComboBox<>();
+    private Button sortDirectionBtn;
+    private final ListView<File> contentView = new ListView<>();
+    private final ListView<String> playlistView = new ListView<>();
+    private final ObservableList<String> playlistNames = FXCollections.observableArrayList();
     private Button playBtn;
     private Button shuffleBtn;
     private Button repeatBtn;
+    private Button transitionBtn;
     private VBox mainContent;
     private StackPane albumPane;
+    private Label noAlbumLabel;
+    // Track whose art was last requested; older loads that finish late are dropped
+    private File artTrack;
     private Button tabSongs;
     private Button tabPlaylist;
     private HBox actionButtonBox;
@@ -79,12 +134,39 @@ public class AuroraPlayer extends Application {
     private static final String ACTIVE_CONTROL_STYLE = "-fx-background-color:#1DB954; -fx-text-fill:white; -fx-font-size:12px; -fx-font-weight:bold; -fx-cursor:hand; -fx-alignment:center; -fx-border-width:0; -fx-background-radius:8;";
     private static final String INACTIVE_CONTROL_STYLE = "-fx-background-color:#282828; -fx-text-fill:#b3b3b3; -fx-font-size:12px; -fx-font-weight:bold; -fx-cursor:hand; -fx-alignment:center; -fx-border-width:0; -fx-background-radius:8;";
     private static final String REPEAT_ONE_STYLE = "-fx-background-color:#00ff88; -fx-text-fill:black; -fx-font-size:12px; -fx-font-weight:bold; -fx-cursor:hand; -fx-alignment:center; -fx-border-width:0; -fx-background-radius:8;";
+    private static final String AVAILABLE_ROW_STYLE = "-fx-text-fill:white; -fx-font-size:13px;";
+    private static final String LIST_STYLE = "-fx-background-color:#181818; -fx-control-inner-background:#181818; -fx-text-fill:white; -fx-font-size:13px; -fx-border-color:transparent;";
+    private static final String UNAVAILABLE_ROW_STYLE = "-fx-text-fill:#535353; -fx-font-size:13px; -fx-font-style:italic;";
+    private static final int SCAN_BATCH_SIZE = 500;
+    private static final double PRELOAD_SECONDS = 10;
+    private static final int[] CROSSFADE_STEPS = {3, 6, 10};
+    private static final Duration CROSSFADE_TICK = Duration.millis(40);
+    private static final Duration SKIP_DEBOUNCE = Duration.millis(150);
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(120);
+    private static final Duration TAG_UPDATE_DELAY = Duration.millis(500);
+    private static final int ALBUM_ART_SIZE = 180;
+    // Position refresh rate while the window is visible / minimized (-Daurora.refreshHz=..., -Daurora.minimizedRefreshHz=...)
+    private static final int VISIBLE_REFRESH_HZ = Integer.getInteger("aurora.refreshHz", 30);
+    private static final int MINIMIZED_REFRESH_HZ = Integer.getInteger("aurora.minimizedRefreshHz", 4);
+    private static final String DATA_DIR = System.getProperty("user.home") + "/.aurora_player";
+    // Downloaded URL audio kept on disk (-Daurora.audioCacheMB=...)
+    private static final long AUDIO_CACHE_BYTES = Long.getLong("aurora.audioCacheMB", 2048) * 1024 * 1024;
+    // URL downloads running at once; the rest wait in the queue (-Daurora.parallelDownloads=...)
+    private static final int PARALLEL_DOWNLOADS = Integer.getInteger("aurora.parallelDownloads", 2);
+    // Start URL playback while still downloading (-Daurora.streamUrls=false to wait for the whole file)
+    private static final boolean STREAM_URLS = Boolean.parseBoolean(System.getProperty("aurora.streamUrls", "true"));
+    private static final long STREAM_START_BYTES = 128 * 1024;
+    // Pre-journal data file, migrated into DATA_DIR on first start
     private static final String DATA_FILE = System.getProperty("user.home") + "/.aurora_player_data.dat";
 
     enum RepeatMode {
         OFF, ALL, ONE
     }
 
+    enum TransitionMode {
+        OFF, GAPLESS, CROSSFADE
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -95,6 +177,21 @@ public class AuroraPlayer extends Application {
         initializeUI(stage);
         updateContentView();
         updateActionButtons();
+        libraryWatcher.start();
+    }
+
+    // Runs for both the close button (Platform.exit) and closing the window
+    @Override
+    public void stop() {
+        downloadManager.close();
+        if (streamServer != null) streamServer.close();
+        players.close();
+        audioCache.close();
+        libraryWatcher.close();
+        libraryValidator.close();
+        tagIndex.close();
+        artworkCache.close();
+        libraryWriter.close();
     }
 
     private void initializeUI(Stage stage) {
@@ -125,11 +222,12 @@ public class AuroraPlayer extends Application {
             }
         });
 
+        setupPositionTicker(stage);
+
         stage.initStyle(StageStyle.UNDECORATED);
         stage.setScene(scene);
         stage.setTitle("AURORA");
         setApplicationIcon(stage);
-        stage.setOnCloseRequest(e -> saveDataToFile());
         stage.show();
     }
 
@@ -148,10 +246,7 @@ public class AuroraPlayer extends Application {
 
         Button minimizeBtn = createTitleBarButton("ー", e -> stage.setIconified(true));
         Button maximizeBtn = createTitleBarButton("🗖", e -> stage.setMaximized(!stage.isMaximized()));
-        Button closeBtn = createTitleBarButton("✕", e -> {
-            saveDataToFile();
-            Platform.exit();
-        });
+        Button closeBtn = createTitleBarButton("✕", e -> Platform.exit());
 
         titleBar.getChildren().addAll(titleLabel, titleSpacer, minimizeBtn, maximizeBtn, closeBtn);
         makeDraggable(titleBar, stage);
@@ -188,9 +283,10 @@ public class AuroraPlayer extends Application {
         menuBox.setAlignment(Pos.CENTER);
 
         Button addFileBtn = createUploadButton("FILE", e -> handleAddFile(stage));
+        Button addFolderBtn = createUploadButton("FOLDER", e -> handleAddFolder(stage));
         Button addUrlBtn = createUploadButton("URL", e -> addFromUrl());
 
-        VBox uploadBox = new VBox(8, addFileBtn, addUrlBtn);
+        VBox uploadBox = new VBox(8, addFileBtn, addFolderBtn, addUrlBtn);
         uploadBox.setPadding(new Insets(20));
 
         Region leftSpacer = new Region();
@@ -243,45 +339,304 @@ public class AuroraPlayer extends Application {
         }
     }
 
+    private void handleAddFolder(Stage stage) {
+        DirectoryChooser dc = new DirectoryChooser();
+        dc.setTitle("Select Music Folder");
+        File dir = dc.showDialog(stage);
+        if (dir == null) return;
+
+        String playlistName = "PLAYLIST_DETAIL".equals(currentView) ? currentPlaylistName : null;
+        int[] added = {0};
+        FolderScanner scanner = new FolderScanner(dir.toPath(), SCAN_BATCH_SIZE,
+                batch -> Platform.runLater(() -> added[0] += importTracks(batch, playlistName)));
+        Stage progressStage = showScanProgressWindow(scanner, dir);
+
+        Thread scanThread = new Thread(() -> {
+            boolean completed = scanner.scan();
+            Platform.runLater(() -> {
+                progressStage.close();
+                if (completed && playlistName == null) {
+                    libraryWatcher.watch(dir.toPath());
+                }
+                String target = playlistName == null ? "library" : "playlist";
+                showAlert(completed ? "Success" : "Cancelled", added[0] + " song(s) added to " + target + " from "
+                        + scanner.getFilesFound() + " found in " + scanner.getDirectoriesScanned() + " folder(s).");
+            });
+        }, "aurora-folder-scan");
+        scanThread.setDaemon(true);
+        scanThread.start();
+    }
+
+    private Stage showScanProgressWindow(FolderScanner scanner, File dir) {
+        Stage progressStage = new Stage();
+        progressStage.initStyle(StageStyle.UNDECORATED);
+        progressStage.setTitle("Scanning Folder");
+
+        Label titleLbl = new Label("Scanning " + dir.getName() + "...");
+        titleLbl.setStyle("-fx-text-fill:white; -fx-font-size:13px; -fx-font-weight:bold;");
+
+        Label progressLabel = new Label("Starting...");
+        progressLabel.setStyle("-fx-text-fill:#b3b3b3; -fx-font-size:12px;");
+
+        ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBar.setPrefWidth(300);
+        progressBar.setStyle("-fx-accent: #1DB954;");
+
+        Button cancel = new Button("Cancel");
+        cancel.setStyle("-fx-background-color:#282828; -fx-text-fill:#b3b3b3;");
+        applyHoverEffect(cancel);
+        cancel.setOnAction(e -> {
+            scanner.cancel();
+            progressLabel.setText("Cancelling...");
+        });
+
+        HBox buttons = new HBox(cancel);
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+
+        VBox root = new VBox(10, titleLbl, progressLabel, progressBar, buttons);
+        root.setPadding(new Insets(20));
+        root.setStyle("-fx-background-color:#121212; -fx-border-color:#282828; -fx-border-width:1;");
+
+        // Poll the scanner's counters instead of posting an update per file
+        Timeline ticker = new Timeline(new KeyFrame(Duration.millis(250), e -> {
+            if (!scanner.isCancelled()) {
+                progressLabel.setText(scanner.getDirectoriesScanned() + " folder(s) scanned, " + scanner.getFilesFound() + " song(s) found");
+            }
+        }));
+        ticker.setCycleCount(Timeline.INDEFINITE);
+        ticker.play();
+        progressStage.setOnHidden(e -> ticker.stop());
+
+        progressStage.setScene(new Scene(root));
+        progressStage.show();
+        return progressStage;
+    }
+
     private void addFilesToPlaylist(List<File> files, String playlistName) {
-        ObservableList<File> playlist = playlists.get(playlistName);
-        if (playlist == null) return;
+        if (!playlists.containsKey(playlistName)) return;
+
+        int added = importTracks(files, playlistName);
+        showImportResult(added, files.size(), "playlist");
+    }
+
+    private void addFilesToLibrary(List<File> files) {
+        int added = importTracks(files, null);
+        if (added > 0 && allSongs.size() == added && currentPlaylist.isEmpty()) {
+            currentPlaylist.setAll(allSongs);
+            currentIndex = 0;
+            playTrack();
+        }
+        showImportResult(added, files.size(), "library");
+    }
+
+    // Applies an import as one change set: a single list change event, which the views follow,
+    // and a single persisted batch of changes. Returns the number of tracks added.
+    private int importTracks(Collection<File> files, String playlistName) {
+        ObservableList<File> target = playlistName == null ? allSongs : playlists.get(playlistName);
+        if (target == null) return 0;
+        TrackIndex index = playlistName == null ? libraryIndex : playlistIndex(playlistName);
 
-        int added = 0;
-        for (File f : files) {
-            if (!playlist.contains(f)) {
-                playlist.add(f);
-                added++;
+        Set<File> batch = new LinkedHashSet<>();
+        for (File file : files) {
+            File f = trackRegistry.intern(file);
+            if (!index.contains(f)) {
+                batch.add(f);
             }
         }
+        if (batch.isEmpty()) return 0;
 
-        if (added > 0) {
-            saveDataToFile();
-            openPlaylist(playlistName);
-            showAlert("Success", added + " song(s) added to playlist!");
+        List<LibraryChange> changes = new ArrayList<>(batch.size());
+        for (File f : batch) {
+            String path = toStoredPath(f);
+            changes.add(playlistName == null ? LibraryChange.songAdded(path) : LibraryChange.playlistSongAdded(playlistName, path));
+        }
+        target.addAll(batch);
+        persist(changes);
+        if (playlistName == null) libraryWatcher.include(localPaths(batch));
+        tagIndex.index(new ArrayList<>(batch), this::onTagsIndexed);
+        return batch.size();
+    }
+
+    private void showImportResult(int added, int total, String target) {
+        if (added == 0 && total == 0) return;
+        int skipped = total - added;
+        if (added == 0) {
+            showAlert("Info", "All selected songs are already in the " + target + ".");
+        } else if (skipped > 0) {
+            showAlert("Success", added + " song(s) added to " + target + ", " + skipped + " already present.");
+        } else {
+            showAlert("Success", added + " song(s) added to " + target + ".");
         }
     }
 
-    private void addFilesToLibrary(List<File> files) {
-        int added = 0;
-        for (File f : files) {
-            if (!allSongs.contains(f)) {
-                allSongs.add(f);
-                added++;
+    // Library Sync
+    private LibraryWatcher createLibraryWatcher() {
+        return new LibraryWatcher(Paths.get(DATA_DIR, "roots.txt"), new LibraryWatcher.Listener() {
+            @Override
+            public void onChanges(Set<Path> created, Set<Path> deleted) {
+                Platform.runLater(() -> applyLibrarySync(created, deleted));
             }
+
+            @Override
+            public void onRescan(Path root) {
+                Set<Path> present = ConcurrentHashMap.newKeySet();
+                FolderScanner scanner = new FolderScanner(root, SCAN_BATCH_SIZE, batch -> {
+                    for (File f : batch) present.add(f.toPath());
+                });
+                if (scanner.scan()) {
+                    Platform.runLater(() -> reconcileRoot(root, present));
+                }
+            }
+        });
+    }
+
+    private void reconcileRoot(Path root, Set<Path> present) {
+        Set<Path> deleted = new LinkedHashSet<>();
+        for (File track : allSongs) {
+            if (track.getPath().startsWith("URL: ")) continue;
+            Path path = track.toPath().toAbsolutePath();
+            if (path.startsWith(root) && !present.contains(path) && !track.exists()) {
+                deleted.add(path);
+            }
+        }
+        Set<Path> created = new LinkedHashSet<>();
+        for (Path path : present) {
+            if (!libraryIndex.contains(path.toFile()) && !libraryWatcher.isExcluded(path)) created.add(path);
+        }
+        if (!created.isEmpty() || !deleted.isEmpty()) {
+            applyLibrarySync(created, deleted);
         }
+    }
 
-        if (added > 0) {
-            saveDataToFile();
-            updateContentView();
-            
-            if (allSongs.size() == files.size() && currentPlaylist.isEmpty()) {
-                currentPlaylist.setAll(allSongs);
-                currentIndex = 0;
-                playTrack();
+    // Applies one watcher batch as a single change set. A deleted track with a created file of
+    // the same name in the batch is treated as moved and replaced in place, keeping its playlist slots.
+    private void applyLibrarySync(Set<Path> created, Set<Path> deleted) {
+        Map<String, File> createdByName = new HashMap<>();
+        for (Path path : created) {
+            createdByName.putIfAbsent(path.getFileName().toString(), path.toFile());
+        }
+
+        Map<File, File> moved = new HashMap<>();
+        Set<File> removed = new HashSet<>();
+        for (File track : tracksUnder(deleted)) {
+            File target = createdByName.remove(track.getName());
+            if (target != null && !libraryIndex.contains(target)) {
+                moved.put(track, trackRegistry.intern(target));
+            } else {
+                removed.add(track);
+            }
+        }
+
+        List<LibraryChange> changes = new ArrayList<>();
+        if (!moved.isEmpty() || !removed.isEmpty()) {
+            syncTrackList(allSongs, null, moved, removed, changes);
+            for (Map.Entry<String, ObservableList<File>> entry : playlists.entrySet()) {
+                syncTrackList(entry.getValue(), entry.getKey(), moved, removed, changes);
+            }
+            syncTrackList(currentPlaylist, null, moved, Collections.emptySet(), null);
+            removeFromCurrentPlaylist(removed);
+            persist(changes);
+        }
+
+        importTracks(createdByName.values(), null);
+    }
+
+    private void syncTrackList(ObservableList<File> tracks, String playlistName, Map<File, File> moved, Set<File> removed, List<LibraryChange> changes) {
+        for (int i = 0; i < tracks.size(); i++) {
+            File replacement = moved.get(tracks.get(i));
+            if (replacement != null) {
+                File old = tracks.set(i, replacement);
+                if (changes != null) {
+                    changes.add(playlistName == null ? LibraryChange.songRemoved(toStoredPath(old)) : LibraryChange.playlistSongRemoved(playlistName, toStoredPath(old)));
+                    changes.add(playlistName == null ? LibraryChange.songAdded(toStoredPath(replacement)) : LibraryChange.playlistSongAdded(playlistName, toStoredPath(replacement)));
+                }
+            }
+        }
+        if (changes != null) {
+            for (File f : tracks) {
+                if (removed.contains(f)) {
+                    changes.add(playlistName == null ? LibraryChange.songRemoved(toStoredPath(f)) : LibraryChange.playlistSongRemoved(playlistName, toStoredPath(f)));
+                }
+            }
+        }
+        tracks.removeAll(removed);
+    }
+
+    private static List<Path> localPaths(Collection<File> tracks) {
+        List<Path> paths = new ArrayList<>();
+        for (File track : tracks) {
+            if (!track.getPath().startsWith("URL: ")) paths.add(track.toPath());
+        }
+        return paths;
+    }
+
+    // Moves currentIndex, the shuffle order and the played history back past the removed tracks so
+    // they keep pointing at the same songs. If the current track is removed, the index moves to the
+    // one before it, so the next skip plays the track that followed it.
+    private void removeFromCurrentPlaylist(Collection<File> removed) {
+        int[] newIndex = new int[currentPlaylist.size()];
+        int kept = 0;
+        for (int i = 0; i < newIndex.length; i++) {
+            newIndex[i] = removed.contains(currentPlaylist.get(i)) ? -1 : kept++;
+        }
+        if (kept == newIndex.length) return;
+
+        int keptShuffleIndex = -1;
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < shuffleOrder.size(); i++) {
+            int index = newIndex[shuffleOrder.get(i)];
+            if (index >= 0) order.add(index);
+            // The current position, or the last kept one before it
+            if (i == shuffleIndex) keptShuffleIndex = order.size() - 1;
+        }
+        Set<Integer> played = new HashSet<>();
+        for (int index : playedIndices) {
+            if (newIndex[index] >= 0) played.add(newIndex[index]);
+        }
+
+        if (currentIndex < newIndex.length) {
+            int index = currentIndex;
+            while (index >= 0 && newIndex[index] < 0) index--;
+            currentIndex = index >= 0 ? newIndex[index] : 0;
+        }
+        shuffleOrder.clear();
+        shuffleOrder.addAll(order);
+        shuffleIndex = Math.max(0, keptShuffleIndex);
+        if (!shuffleOrder.isEmpty() && isShuffleOn) currentIndex = shuffleOrder.get(shuffleIndex);
+        playedIndices.clear();
+        playedIndices.addAll(played);
+        currentPlaylist.removeAll(removed);
+    }
+
+    // Library and playlist tracks at, or inside a folder at, one of the given paths
+    private Set<File> tracksUnder(Set<Path> paths) {
+        Set<File> matches = new LinkedHashSet<>();
+        if (paths.isEmpty()) return matches;
+
+        Set<String> keys = new HashSet<>();
+        for (Path path : paths) {
+            keys.add(path.toAbsolutePath().toString());
+        }
+        List<List<File>> lists = new ArrayList<>();
+        lists.add(allSongs);
+        lists.addAll(playlists.values());
+        for (List<File> tracks : lists) {
+            for (File track : tracks) {
+                if (!track.getPath().startsWith("URL: ") && isUnder(track.getAbsolutePath(), keys)) {
+                    matches.add(track);
+                }
             }
-            showAlert("Success", added + " file(s) added.");
         }
+        return matches;
+    }
+
+    private boolean isUnder(String path, Set<String> keys) {
+        while (path != null) {
+            if (keys.contains(path)) return true;
+            int sep = path.lastIndexOf(File.separatorChar);
+            path = sep > 0 ? path.substring(0, sep) : null;
+        }
+        return false;
     }
 
     private VBox createRightSidebar() {
@@ -299,9 +654,7 @@ public class AuroraPlayer extends Application {
         trackBox.setAlignment(Pos.TOP_CENTER);
         trackBox.setPadding(new Insets(10, 0, 20, 0));
 
-        albumPane = new StackPane();
-        albumPane.setPrefSize(180, 180);
-        updateAlbumArt(null);
+        albumPane = createAlbumPane();
 
         Label volumeLabel = new Label("Volume");
         volumeLabel.setStyle("-fx-text-fill:#b3b3b3; -fx-font-size:12px; -fx-font-weight:bold;");
@@ -309,7 +662,8 @@ public class AuroraPlayer extends Application {
         volumeSlider.setStyle("-fx-background-color: transparent; -fx-control-inner-background: #1a1a1a; -fx-accent: #00ff88; -fx-background-radius: 10; -fx-padding: 5;");
         volumeSlider.setMaxWidth(150);
         volumeSlider.valueProperty().addListener((obs, old, newVal) -> {
-            if (mediaPlayer != null) {
+            // During a crossfade the fade timer applies the slider value on its next tick
+            if (mediaPlayer != null && fadingOutPlayer == null) {
                 mediaPlayer.setVolume(newVal.doubleValue());
             }
         });
@@ -342,36 +696,127 @@ public class AuroraPlayer extends Application {
         HBox.setHgrow(actionButtonBox, Priority.ALWAYS);
 
         setupContentView();
+        setupPlaylistView();
 
         VBox content = new VBox(15, headerBox, contentView);
         content.setStyle("-fx-background-color:#181818;");
         content.setPadding(new Insets(20));
         VBox.setVgrow(contentView, Priority.ALWAYS);
+        VBox.setVgrow(playlistView, Priority.ALWAYS);
 
         return content;
     }
 
+    // Swaps the list below the header between the track list and the playlist list
+    private void showList(ListView<?> list) {
+        if (mainContent.getChildren().get(1) != list) {
+            mainContent.getChildren().set(1, list);
+        }
+    }
+
+    // Rows are bound to the track model; text is formatted only for the cells on screen
     private void setupContentView() {
-        contentView.setStyle("-fx-background-color:#181818; -fx-control-inner-background:#181818; -fx-text-fill:white; -fx-font-size:13px; -fx-border-color:transparent;");
+        contentView.setStyle(LIST_STYLE);
         contentView.setPlaceholder(new Label("No songs added.\nClick 'FILE' or 'URL' to get started."));
-        
-        contentView.setCellFactory(lv -> new ListCell<String>() {
-            private final HBox hbox = new HBox(8);
-            private final Label lbl = new Label();
-            private final Button delBtn = new Button("DELETE");
 
-            {
-                lbl.setStyle("-fx-text-fill:white; -fx-font-size:13px;");
-                lbl.setMaxWidth(Double.MAX_VALUE);
-                HBox.setHgrow(lbl, Priority.ALWAYS);
+        contentView.setCellFactory(lv -> new ListCell<File>() {
+            private final Label lbl = new Label();
+            private final HBox hbox = createRowBox(lbl, () -> handleTrackDelete(getIndex(), getItem()));
 
-                delBtn.setStyle("-fx-background-color:#282828; -fx-text-fill:#e03b3b; -fx-font-size:11px; -fx-font-weight:bold; -fx-padding:6 12 6 12; -fx-background-radius:15; -fx-cursor:hand;");
-                applyHoverEffect(delBtn);
-                delBtn.setOnAction(e -> handleDeleteButtonClick(getIndex(), getItem()));
+            @Override
+            protected void updateItem(File item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    setGraphic(null);
+                } else {
+                    boolean missing = libraryValidator.isUnavailable(item);
+                    String row = (getIndex() + 1) + ". " + trackLabel(item);
+                    lbl.setText(missing ? row + "  (unavailable)" : row);
+                    lbl.setStyle(missing ? UNAVAILABLE_ROW_STYLE : AVAILABLE_ROW_STYLE);
+                    setGraphic(hbox);
+                }
+            }
+        });
 
-                hbox.getChildren().addAll(lbl, delBtn);
-                hbox.setAlignment(Pos.CENTER_LEFT);
+        contentView.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2 && e.getButton() == MouseButton.PRIMARY) {
+                handleDoubleClick();
             }
+        });
+        setupSearchField();
+        setupSortControls();
+    }
+
+    // Search-as-you-type over the library; the query runs once typing pauses
+    private void setupSearchField() {
+        searchField.setPromptText("Search songs");
+        searchField.setPrefWidth(260);
+        searchField.setStyle("-fx-background-color:#282828; -fx-text-fill:white; -fx-prompt-text-fill:#8a8a8a; -fx-font-size:12px; -fx-background-radius:15; -fx-padding:6 12 6 12;");
+        searchDebounce.setOnFinished(e -> applySearch());
+        tagUpdateDelay.setOnFinished(e -> applyTagUpdates());
+        searchField.textProperty().addListener((obs, oldText, text) -> searchDebounce.playFromStart());
+    }
+
+    // Tracks added to the library are matched by the current predicate; changed tags need a new search
+    private void refreshSearch() {
+        if (visibleSongs.getPredicate() != null) searchDebounce.playFromStart();
+    }
+
+    private void applySearch() {
+        visibleSongs.setPredicate(searchIndex.search(searchField.getText()));
+        if (currentView.equals("SONGS")) contentView.setPlaceholder(songsPlaceholder());
+    }
+
+    private Label songsPlaceholder() {
+        return new Label(visibleSongs.getPredicate() == null ? "No songs added.\nClick 'FILE' or 'URL' to get started." : "No matching songs.");
+    }
+
+    // Only the first sort by a column compares tags; switching back later copies its cached order
+    private void setupSortControls() {
+        sortBox.getItems().setAll(LibrarySort.Column.values());
+        sortBox.setValue(librarySort.getColumn());
+        sortBox.setStyle("-fx-background-color:#282828; -fx-font-size:11px; -fx-background-radius:15;");
+        sortBox.setOnAction(e -> sortSongs(sortBox.getValue(), librarySort.isDescending()));
+
+        sortDirectionBtn = createActionButton("↑");
+        sortDirectionBtn.setOnAction(e -> sortSongs(librarySort.getColumn(), !librarySort.isDescending()));
+    }
+
+    private void sortSongs(LibrarySort.Column column, boolean descending) {
+        if (column == null) return;
+        librarySort.sortBy(column, descending);
+        sortDirectionBtn.setText(descending ? "↓" : "↑");
+    }
+
+    // Runs on a tag index thread. Updates are batched so a first full scan re-sorts at most twice a second.
+    private void onTagsIndexed(List<File> indexed) {
+        Platform.runLater(() -> {
+            pendingTagUpdates.addAll(indexed);
+            if (tagUpdateDelay.getStatus() != Animation.Status.RUNNING) tagUpdateDelay.playFromStart();
+        });
+        requestRefresh();
+    }
+
+    private void applyTagUpdates() {
+        Set<File> changed = new HashSet<>(pendingTagUpdates);
+        pendingTagUpdates.clear();
+        searchIndex.update(changed);
+        librarySort.update(changed);
+        for (Map.Entry<String, PlaylistDuration> e : playlistDurations.entrySet()) {
+            if (e.getValue().update(changed)) refreshPlaylistRow(e.getKey());
+        }
+        refreshSearch();
+    }
+
+    private void setupPlaylistView() {
+        playlistView.setStyle(LIST_STYLE);
+        playlistView.setPlaceholder(new Label("No playlists yet.\nClick '+' to start."));
+        playlistView.setItems(playlistNames);
+
+        playlistView.setCellFactory(lv -> new ListCell<String>() {
+            private final Label lbl = new Label();
+            private final HBox hbox = createRowBox(lbl, () -> handlePlaylistDelete(getItem()));
 
             @Override
             protected void updateItem(String item, boolean empty) {
@@ -380,63 +825,76 @@ public class AuroraPlayer extends Application {
                     setText(null);
                     setGraphic(null);
                 } else {
-                    lbl.setText(item);
+                    ObservableList<File> pl = playlists.get(item);
+                    lbl.setText(item + " (" + (pl == null ? 0 : pl.size()) + " songs" + playlistLength(item) + ")");
                     setGraphic(hbox);
                 }
             }
         });
 
-        contentView.setOnMouseClicked(e -> {
+        playlistView.setOnMouseClicked(e -> {
             if (e.getClickCount() == 2 && e.getButton() == MouseButton.PRIMARY) {
-                handleDoubleClick();
+                String selected = playlistView.getSelectionModel().getSelectedItem();
+                if (selected != null) openPlaylist(selected);
             }
         });
     }
 
-    private void handleDeleteButtonClick(int idx, String item) {
+    private HBox createRowBox(Label lbl, Runnable onDelete) {
+        lbl.setStyle(AVAILABLE_ROW_STYLE);
+        lbl.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(lbl, Priority.ALWAYS);
+
+        Button delBtn = new Button("DELETE");
+        delBtn.setStyle("-fx-background-color:#282828; -fx-text-fill:#e03b3b; -fx-font-size:11px; -fx-font-weight:bold; -fx-padding:6 12 6 12; -fx-background-radius:15; -fx-cursor:hand;");
+        applyHoverEffect(delBtn);
+        delBtn.setOnAction(e -> onDelete.run());
+
+        HBox hbox = new HBox(8, lbl, delBtn);
+        hbox.setAlignment(Pos.CENTER_LEFT);
+        return hbox;
+    }
+
+    private void handleTrackDelete(int idx, File item) {
         if (idx < 0 || item == null) return;
 
-        switch (currentView) {
-            case "SONGS":
-                handleSongDelete(idx, item);
-                break;
-            case "PLAYLISTS":
-                handlePlaylistDelete(item);
-                break;
-            case "PLAYLIST_DETAIL":
-                handlePlaylistItemDelete(idx);
-                break;
+        if ("SONGS".equals(currentView)) {
+            handleSongDelete(allSongs.indexOf(item), item);
+        } else if ("PLAYLIST_DETAIL".equals(currentView)) {
+            handlePlaylistItemDelete(idx, item);
         }
     }
 
-    private void handleSongDelete(int idx, String item) {
-        if (showCustomConfirmDialog("Delete Song", "Delete " + item + "?", "This action cannot be undone.")) {
-            if (idx >= 0 && idx < allSongs.size()) {
-                File removed = allSongs.remove(idx);
-                currentPlaylist.remove(removed);
-                saveDataToFile();
-                updateContentView();
+    private void handleSongDelete(int idx, File item) {
+        if (showCustomConfirmDialog("Delete Song", "Delete " + stripExtension(item.getName()) + "?", "This action cannot be undone.")) {
+            if (idx >= 0 && idx < allSongs.size() && allSongs.get(idx) == item) {
+                allSongs.remove(idx);
+                removeFromCurrentPlaylist(Collections.singleton(item));
+                persist(LibraryChange.songRemoved(toStoredPath(item)));
+                // Otherwise the next rescan of its folder would add it back
+                if (!item.getPath().startsWith("URL: ")) libraryWatcher.exclude(Collections.singletonList(item.toPath()));
             }
         }
     }
 
-    private void handlePlaylistDelete(String item) {
-        int pidx = item.lastIndexOf(" (");
-        String playlistName = pidx > 0 ? item.substring(0, pidx) : item;
-        
+    private void handlePlaylistDelete(String playlistName) {
+        if (playlistName == null) return;
+
         if (showCustomConfirmDialog("Delete Playlist", "Delete playlist '" + playlistName + "'?", "This action cannot be undone.")) {
-            playlists.remove(playlistName);
-            saveDataToFile();
-            updateContentView();
+            if (playlists.remove(playlistName) != null) {
+                playlistIndexes.remove(playlistName);
+                playlistDurations.remove(playlistName);
+                playlistNames.remove(playlistName);
+                persist(LibraryChange.playlistDeleted(playlistName));
+            }
         }
     }
 
-    private void handlePlaylistItemDelete(int idx) {
+    private void handlePlaylistItemDelete(int idx, File item) {
         ObservableList<File> playlist = playlists.get(currentPlaylistName);
-        if (playlist != null && idx >= 0 && idx < playlist.size()) {
+        if (playlist != null && idx < playlist.size() && playlist.get(idx) == item) {
             playlist.remove(idx);
-            saveDataToFile();
-            openPlaylist(currentPlaylistName);
+            persist(LibraryChange.playlistSongRemoved(currentPlaylistName, toStoredPath(item)));
         }
     }
 
@@ -446,14 +904,16 @@ public class AuroraPlayer extends Application {
         playBtn = createPlayButton();
         Button nextBtn = createControlButton("Next", INACTIVE_CONTROL_STYLE);
         repeatBtn = createControlButton("Repeat", INACTIVE_CONTROL_STYLE);
+        transitionBtn = createControlButton("Gapless", INACTIVE_CONTROL_STYLE);
 
         shuffleBtn.setOnAction(e -> toggleShuffle());
-        prevBtn.setOnAction(e -> playPrev());
+        prevBtn.setOnAction(e -> skipPrev());
         playBtn.setOnAction(e -> togglePlay());
-        nextBtn.setOnAction(e -> playNext());
+        nextBtn.setOnAction(e -> skipNext());
         repeatBtn.setOnAction(e -> toggleRepeat());
+        transitionBtn.setOnAction(e -> toggleTransition());
 
-        HBox controlBox = new HBox(20, shuffleBtn, prevBtn, playBtn, nextBtn, repeatBtn);
+        HBox controlBox = new HBox(20, shuffleBtn, prevBtn, playBtn, nextBtn, repeatBtn, transitionBtn);
         controlBox.setAlignment(Pos.CENTER);
         controlBox.setPadding(new Insets(10, 0, 5, 0));
 
@@ -495,7 +955,7 @@ public class AuroraPlayer extends Application {
     }
 
     private void seekToPosition() {
-        if (mediaPlayer != null && !isUpdatingProgress.get()) {
+        if (mediaPlayer != null) {
             mediaPlayer.seek(Duration.seconds(progressSlider.getValue()));
         }
     }
@@ -533,7 +993,9 @@ public class AuroraPlayer extends Application {
     private void updateActionButtons() {
         actionButtonBox.getChildren().clear();
 
-        if (currentView.equals("PLAYLISTS")) {
+        if (currentView.equals("SONGS")) {
+            actionButtonBox.getChildren().addAll(searchField, sortBox, sortDirectionBtn);
+        } else if (currentView.equals("PLAYLISTS")) {
             Button createBtn = createActionButton("+");
             createBtn.setOnAction(e -> createNewPlaylist());
             actionButtonBox.getChildren().add(createBtn);
@@ -569,36 +1031,23 @@ public class AuroraPlayer extends Application {
         return btn;
     }
 
-    private void updateContentView() {
-        contentView.getItems().clear();
-
-        if (currentView.equals("SONGS")) {
-            populateSongsList();
-        } else {
-            populatePlaylistsList();
-        }
-    }
-
-    private void populateSongsList() {
-        for (int i = 0; i < allSongs.size(); i++) {
-            String displayName = stripExtension(allSongs.get(i).getName());
-            contentView.getItems().add((i + 1) + ". " + displayName);
-        }
-        
-        if (allSongs.isEmpty()) {
-            contentView.setPlaceholder(new Label("No songs added.\nClick 'FILE' or 'URL' to get started."));
+    // Safe to call from any thread; collapses bursts into one repaint of the visible rows
+    private void requestRefresh() {
+        if (isRefreshPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                isRefreshPending.set(false);
+                contentView.refresh();
+            });
         }
     }
 
-    private void populatePlaylistsList() {
-        for (String playlistName : playlists.keySet()) {
-            ObservableList<File> pl = playlists.get(playlistName);
-            int size = pl == null ? 0 : pl.size();
-            contentView.getItems().add(playlistName + " (" + size + " songs)");
-        }
-        
-        if (playlists.isEmpty()) {
-            contentView.setPlaceholder(new Label("No playlists yet.\nClick '+' to start."));
+    private void updateContentView() {
+        if (currentView.equals("SONGS")) {
+            contentView.setItems(visibleSongs);
+            contentView.setPlaceholder(songsPlaceholder());
+            showList(contentView);
+        } else {
+            showList(playlistView);
         }
     }
 
@@ -608,10 +1057,7 @@ public class AuroraPlayer extends Application {
 
         switch (currentView) {
             case "SONGS":
-                playSongAtIndex(selected);
-                break;
-            case "PLAYLISTS":
-                openPlaylistAtIndex(selected);
+                playSongAtIndex(visibleSongs.getSourceIndex(selected));
                 break;
             case "PLAYLIST_DETAIL":
                 playPlaylistSongAtIndex(selected);
@@ -619,21 +1065,15 @@ public class AuroraPlayer extends Application {
         }
     }
 
+    // index is a position in the sorted library
     private void playSongAtIndex(int index) {
-        currentPlaylist.setAll(allSongs);
+        currentPlaylist.setAll(librarySort.view());
         currentIndex = index;
         playedIndices.clear();
         if (isShuffleOn) generateShuffleOrder();
         playTrack();
     }
 
-    private void openPlaylistAtIndex(int index) {
-        String item = contentView.getItems().get(index);
-        int idx = item.lastIndexOf(" (");
-        String playlistName = idx > 0 ? item.substring(0, idx) : item;
-        openPlaylist(playlistName);
-    }
-
     private void playPlaylistSongAtIndex(int index) {
         ObservableList<File> playlist = playlists.get(currentPlaylistName);
         if (playlist == null || playlist.isEmpty()) return;
@@ -645,13 +1085,33 @@ public class AuroraPlayer extends Application {
         playTrack();
     }
 
+    // Edits to a playlist re-render only its row in the playlists view (song count and length)
+    private void addPlaylist(String name, ObservableList<File> playlist) {
+        playlists.put(name, playlist);
+        // Registered first so the total is current when the row re-renders
+        playlistDurations.put(name, new PlaylistDuration(playlist, tagIndex::durationMillis));
+        playlistNames.add(name);
+        playlist.addListener((ListChangeListener<File>) change -> {
+            if (playlists.get(name) != playlist) return;
+            refreshPlaylistRow(name);
+        });
+    }
+
+    private void refreshPlaylistRow(String name) {
+        int row = playlistNames.indexOf(name);
+        if (row >= 0) playlistNames.set(row, name);
+    }
+
+    private TrackIndex playlistIndex(String playlistName) {
+        return playlistIndexes.computeIfAbsent(playlistName, name -> new TrackIndex(playlists.get(name)));
+    }
+
     private void createNewPlaylist() {
         Optional<String> result = showCustomTextInputDialog("Create Playlist", "Enter playlist name:");
         result.ifPresent(name -> {
             if (!name.trim().isEmpty() && !playlists.containsKey(name)) {
-                playlists.put(name, FXCollections.observableArrayList());
-                saveDataToFile();
-                updateContentView();
+                addPlaylist(name, FXCollections.observableArrayList());
+                persist(LibraryChange.playlistCreated(name));
                 showAlert("Success", "Playlist '" + name + "' created!");
             } else {
                 showAlert("Error", "Invalid or duplicate playlist name.");
@@ -665,20 +1125,13 @@ public class AuroraPlayer extends Application {
         contentTitle.setText("♫ " + playlistName);
 
         ObservableList<File> playlist = playlists.get(playlistName);
-        contentView.getItems().clear();
+        showList(contentView);
 
         if (playlist == null) {
+            contentView.setItems(FXCollections.observableArrayList());
             contentView.setPlaceholder(new Label("Playlist not found."));
-            updateActionButtons();
-            return;
-        }
-
-        for (int i = 0; i < playlist.size(); i++) {
-            String displayName = stripExtension(playlist.get(i).getName());
-            contentView.getItems().add((i + 1) + ". " + displayName);
-        }
-
-        if (playlist.isEmpty()) {
+        } else {
+            contentView.setItems(playlist);
             contentView.setPlaceholder(new Label("Playlist is empty.\nAdd songs using 'FILE' or 'URL' button."));
         }
 
@@ -698,137 +1151,334 @@ private void addFromUrl() {
 // -----------------------------
 // 공용 runProcessWithProgress
 // -----------------------------
-private int runProcessWithProgress(String[] command, ProgressBar progressBar, Label progressLabel, double min, double max) throws IOException, InterruptedException {
+// Maps yt-dlp percentages, or ffmpeg's encoded time against the input duration it reports,
+// onto [min, max] of the job's progress. The downloads window polls the job, so output lines
+// cost no UI work; only the last plain line is kept for the error log.
+private int runProcessWithProgress(String[] command, DownloadManager.Job job, double min, double max) throws IOException, InterruptedException {
     ProcessBuilder pb = new ProcessBuilder(command);
     pb.redirectErrorStream(true);
-    Process process = pb.start();
+    Process process = job.start(pb);
 
+    String lastLine = "";
     try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
         String line;
-        int progressCount = 0;
+        long durationMicros = -1;
         while ((line = reader.readLine()) != null) {
-            System.out.println(line);
-            progressCount++;
-            int finalProgressCount = progressCount;
-            String finalLine = line;
-            Platform.runLater(() -> {
-                double progress = min + Math.min(finalProgressCount / 50.0, max - min);
-                progressBar.setProgress(progress);
-                progressLabel.setText(finalLine);
-            });
+            if (!reportProgress(line, job, min, max)) {
+                long duration = ProgressParser.durationMicros(line);
+                long outTime = ProgressParser.outTimeMicros(line);
+                if (duration > 0 && durationMicros < 0) {
+                    durationMicros = duration;
+                } else if (outTime >= 0 && durationMicros > 0) {
+                    double fraction = Math.min(1.0, (double) outTime / durationMicros);
+                    job.update(min + (max - min) * fraction, "Converting " + (int) (fraction * 100) + "%");
+                } else if (outTime < 0 && !line.contains("=")) {
+                    lastLine = line;
+                }
+            }
         }
     }
 
     int exitCode = process.waitFor();
+    job.finished(process);
+    if (exitCode != 0) {
+        System.err.println(command[0] + " exited with " + exitCode + ": " + lastLine);
+    }
     return exitCode;
 }
 
+// Returns false if the line is not a yt-dlp progress line
+private boolean reportProgress(String line, DownloadManager.Job job, double min, double max) {
+    double percent = ProgressParser.downloadPercent(line);
+    if (percent < 0) return false;
+    String eta = ProgressParser.downloadEta(line);
+    job.update(min + (max - min) * percent / 100, "Downloading " + (int) percent + "%" + (eta != null ? " · ETA " + eta : ""));
+    return true;
+}
+
 // -----------------------------
-// showDownloadProgressWindow에서 호출 예시
+// DownloadManager pipeline: runs on a download worker, one job per URL
 // -----------------------------
-private void showDownloadProgressWindow(String url, Consumer<File> onComplete) {
-    Stage progressStage = new Stage();
-    progressStage.initModality(Modality.APPLICATION_MODAL);
-    progressStage.initStyle(StageStyle.UNDECORATED);
-    progressStage.setTitle("Downloading YouTube Audio");
+private void downloadToCache(DownloadManager.Job job) throws IOException, InterruptedException {
+    String url = job.url;
+    File downloaded = null;
+    File converted = null;
+    try {
+        // yt-dlp fills in the extension of whatever stream it picks
+        File template = audioCache.newDownloadFile(url, "%(ext)s");
+
+        // 다운로드: AAC or MP3 play as-is, so no re-encode is needed for most sources
+        String[] downloadCmd = {
+                "yt-dlp",
+                "-f", "bestaudio[ext=m4a]/bestaudio[ext=mp3]/bestaudio",
+                "--newline",
+                "-o", template.getAbsolutePath(),
+                url
+        };
+        int downloadExit = runProcessWithProgress(downloadCmd, job, 0, 0.8);
+        downloaded = audioCache.findDownload(template);
+        if (downloadExit != 0 || downloaded == null || downloaded.length() == 0)
+            throw new IOException("yt-dlp failed to download audio.");
+
+        AudioFormats.Format format = AudioFormats.sniff(downloaded.toPath());
+        if (format == AudioFormats.Format.UNKNOWN) {
+            // 변환: only codecs JavaFX cannot play (e.g. Opus in WebM), and to MP3 rather than WAV
+            job.update(0.8, "Converting to MP3...");
+            converted = audioCache.newDownloadFile(url, "mp3");
+            String[] convertCmd = {
+                    "ffmpeg", "-y", "-nostats", "-progress", "pipe:1", "-i", downloaded.getAbsolutePath(),
+                    "-vn", "-codec:a", "libmp3lame", "-q:a", "2", converted.getAbsolutePath()
+            };
+            int convertExit = runProcessWithProgress(convertCmd, job, 0.8, 1.0);
+            if (convertExit != 0 || !converted.exists() || converted.length() == 0)
+                throw new IOException("ffmpeg failed to convert audio.");
 
-    VBox root = new VBox(10);
+            audioCache.put(url, converted, "mp3");
+        } else {
+            audioCache.put(url, downloaded, format.name().toLowerCase(Locale.ROOT));
+        }
+    } finally {
+        if (downloaded != null) downloaded.delete();
+        if (converted != null) converted.delete();
+    }
+}
+
+// -----------------------------
+// Streaming pipeline: yt-dlp piped through ffmpeg into a growing MP3 that playback reads over
+// the loopback StreamServer; when complete the same file becomes the cache entry
+// -----------------------------
+private void streamToCache(DownloadManager.Job job) throws IOException, InterruptedException {
+    String url = job.url;
+    File growing = audioCache.newDownloadFile(url, "mp3");
+    StreamServer.Stream stream = new StreamServer.Stream(growing);
+    try {
+        // A fragmented M4A cannot be played progressively, so the stream is always MP3
+        List<Process> pipeline = job.startPipeline(Arrays.asList(
+                new ProcessBuilder("yt-dlp", "-f", "bestaudio", "--newline", "-o", "-", url),
+                new ProcessBuilder("ffmpeg", "-y", "-i", "pipe:0", "-vn", "-codec:a", "libmp3lame", "-q:a", "2",
+                        "-f", "mp3", growing.getAbsolutePath())
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)));
+        Process downloader = pipeline.get(0);
+        Process encoder = pipeline.get(1);
+        String streamUrl = streamServer().publish(stream);
+
+        // yt-dlp reports progress on stderr while its stdout feeds ffmpeg
+        boolean started = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(downloader.getErrorStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                reportProgress(line, job, 0, 1);
+                if (!started && growing.length() >= STREAM_START_BYTES) {
+                    started = true;
+                    Platform.runLater(() -> startStream(url, streamUrl));
+                }
+            }
+        }
+        encoder.waitFor();
+        if (encoder.exitValue() != 0 || downloader.waitFor() != 0 || growing.length() == 0)
+            throw new IOException("yt-dlp/ffmpeg failed to stream audio.");
+        pipeline.forEach(job::finished);
+
+        stream.file = audioCache.put(url, growing, "mp3");
+        stream.complete = true;
+        if (!started) {
+            Platform.runLater(() -> startStream(url, streamUrl));
+        }
+    } catch (IOException | InterruptedException | RuntimeException e) {
+        stream.failed = true;
+        throw e;
+    } finally {
+        growing.delete();
+        retireStream(stream);
+    }
+}
+
+private synchronized void retireStream(StreamServer.Stream stream) {
+    if (streamServer != null) streamServer.retire(stream);
+}
+
+// The job may have waited for a download slot, or be a retry: start only if the user is still
+// waiting for this URL and nothing else is playing, and never twice
+private void startStream(String url, String streamUrl) {
+    if (!url.equals(requestedStreamUrl) || isPlaying()) return;
+    playSource(streamUrl, stripExtension(trackRegistry.internUrl(url).getName()));
+}
+
+private synchronized StreamServer streamServer() throws IOException {
+    if (streamServer == null) streamServer = new StreamServer();
+    return streamServer;
+}
+
+// -----------------------------
+// Non-modal downloads window: per-job rows plus the overall progress, polled from the manager
+// -----------------------------
+private void showDownloadsWindow() {
+    if (downloadsStage != null) {
+        downloadsStage.show();
+        downloadsStage.toFront();
+        return;
+    }
+
+    downloadsStage = new Stage();
+    downloadsStage.initStyle(StageStyle.UNDECORATED);
+    downloadsStage.setTitle("Downloads");
+
+    Label titleLbl = new Label("Downloads");
+    titleLbl.setStyle("-fx-text-fill:white; -fx-font-size:13px; -fx-font-weight:bold;");
+
+    Label summaryLabel = new Label();
+    summaryLabel.setStyle("-fx-text-fill:#b3b3b3; -fx-font-size:12px;");
+
+    ProgressBar totalBar = new ProgressBar(0);
+    totalBar.setPrefWidth(360);
+    totalBar.setStyle("-fx-accent: #1DB954;");
+
+    VBox jobRows = new VBox(8);
+    ScrollPane scroll = new ScrollPane(jobRows);
+    scroll.setFitToWidth(true);
+    scroll.setPrefHeight(220);
+    scroll.setStyle("-fx-background:#121212; -fx-background-color:#121212;");
+
+    Button clear = new Button("Clear finished");
+    Button hide = new Button("Hide");
+    clear.setStyle("-fx-background-color:#282828; -fx-text-fill:#b3b3b3;");
+    hide.setStyle("-fx-background-color:#282828; -fx-text-fill:#b3b3b3;");
+    applyHoverEffect(clear);
+    applyHoverEffect(hide);
+    clear.setOnAction(e -> downloadManager.clearFinished());
+    hide.setOnAction(e -> downloadsStage.hide());
+
+    HBox buttons = new HBox(8, clear, hide);
+    buttons.setAlignment(Pos.CENTER_RIGHT);
+
+    VBox root = new VBox(10, titleLbl, summaryLabel, totalBar, scroll, buttons);
     root.setPadding(new Insets(20));
     root.setStyle("-fx-background-color:#121212; -fx-border-color:#282828; -fx-border-width:1;");
 
-    ProgressBar progressBar = new ProgressBar(0);
-    progressBar.setPrefWidth(300);
-    progressBar.setStyle("-fx-accent: #1DB954;");
+    // Rows are rebuilt only when the job list changes; otherwise each tick just updates them
+    List<DownloadManager.Job> shownJobs = new ArrayList<>();
+    List<Runnable> rowUpdaters = new ArrayList<>();
+    Timeline ticker = new Timeline(new KeyFrame(Duration.millis(250), e -> {
+        List<DownloadManager.Job> jobs = downloadManager.getJobs();
+        if (!jobs.equals(shownJobs)) {
+            shownJobs.clear();
+            shownJobs.addAll(jobs);
+            rowUpdaters.clear();
+            jobRows.getChildren().clear();
+            for (DownloadManager.Job job : jobs) {
+                jobRows.getChildren().add(createDownloadRow(job, rowUpdaters));
+            }
+        }
+        rowUpdaters.forEach(Runnable::run);
+
+        int active = downloadManager.getActiveCount();
+        summaryLabel.setText(active == 0 ? "No active downloads" : active + " download(s) in progress or queued");
+        totalBar.setProgress(downloadManager.getAggregateProgress());
+    }));
+    ticker.setCycleCount(Timeline.INDEFINITE);
+    downloadsStage.setOnShown(e -> ticker.play());
+    downloadsStage.setOnHidden(e -> ticker.stop());
+
+    downloadsStage.setScene(new Scene(root));
+    downloadsStage.show();
+}
 
-    Label progressLabel = new Label("Starting download...");
-    progressLabel.setStyle("-fx-text-fill:#b3b3b3; -fx-font-size:12px;");
+private VBox createDownloadRow(DownloadManager.Job job, List<Runnable> rowUpdaters) {
+    Label urlLbl = new Label(job.url);
+    urlLbl.setStyle("-fx-text-fill:white; -fx-font-size:12px;");
+    urlLbl.setMaxWidth(300);
 
-    root.getChildren().addAll(progressLabel, progressBar);
-    Scene scene = new Scene(root);
-    progressStage.setScene(scene);
-    progressStage.show();
+    Label statusLbl = new Label();
+    statusLbl.setStyle("-fx-text-fill:#b3b3b3; -fx-font-size:11px;");
+    statusLbl.setMaxWidth(330);
 
-    new Thread(() -> {
-        try {
-            File tempMp3 = File.createTempFile("yt_audio_temp", ".mp3");
-            File tempWav = File.createTempFile("yt_audio_temp", ".wav");
-
-            if (tempMp3.exists()) tempMp3.delete();
-            if (tempWav.exists()) tempWav.delete();
-
-            // 다운로드
-            String[] downloadCmd = {
-                    "yt-dlp",
-                    "-f", "bestaudio",
-                    "--extract-audio",
-                    "--audio-format", "mp3",
-                    "-o", tempMp3.getAbsolutePath(),
-                    url
-            };
-            int downloadExit = runProcessWithProgress(downloadCmd, progressBar, progressLabel, 0, 0.5);
-            if (downloadExit != 0 || !tempMp3.exists() || tempMp3.length() == 0)
-                throw new IOException("yt-dlp failed to download audio.");
+    ProgressBar bar = new ProgressBar(0);
+    bar.setPrefWidth(330);
+    bar.setStyle("-fx-accent: #1DB954;");
 
-            Platform.runLater(() -> progressLabel.setText("Converting to WAV..."));
+    Button cancel = new Button("✕");
+    cancel.setStyle("-fx-background-color:transparent; -fx-text-fill:#b3b3b3; -fx-cursor:hand;");
+    cancel.setOnAction(e -> job.cancel());
 
-            // 변환
-            String[] convertCmd = {
-                    "ffmpeg", "-y", "-i", tempMp3.getAbsolutePath(),
-                    "-ar", "44100", "-ac", "2", tempWav.getAbsolutePath()
-            };
-            int convertExit = runProcessWithProgress(convertCmd, progressBar, progressLabel, 0.5, 1.0);
-            if (convertExit != 0 || !tempWav.exists() || tempWav.length() == 0)
-                throw new IOException("ffmpeg failed to convert audio.");
-
-            Platform.runLater(() -> {
-                File urlFile = new File("URL: " + url);
-                urlMappings.put(urlFile.getAbsolutePath(), tempWav.getAbsolutePath());
-                if ("PLAYLIST_DETAIL".equals(currentView) && currentPlaylistName != null) {
-                    addUrlToPlaylist(urlFile, currentPlaylistName);
-                } else {
-                    addUrlToLibrary(urlFile);
-                }
+    Region spacer = new Region();
+    HBox.setHgrow(spacer, Priority.ALWAYS);
+    HBox header = new HBox(6, urlLbl, spacer, cancel);
+    header.setAlignment(Pos.CENTER_LEFT);
 
-                progressStage.close();
-                if (onComplete != null) onComplete.accept(tempWav);
-            });
+    rowUpdaters.add(() -> {
+        statusLbl.setText(job.getState() + " · " + job.getMessage());
+        bar.setProgress(job.getProgress());
+        cancel.setDisable(job.isFinished());
+    });
+    return new VBox(4, header, statusLbl, bar);
+}
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            Platform.runLater(() -> {
-                progressStage.close();
-                showAlert("Error", "Failed to download/convert audio:\n" + e.getMessage());
-            });
-        }
-    }).start();
+private File addDownloadedUrl(String url, String playlistName) {
+    File urlFile = trackRegistry.internUrl(url);
+    if (playlistName != null) {
+        addUrlToPlaylist(urlFile, playlistName);
+    } else {
+        addUrlToLibrary(urlFile);
+    }
+    return urlFile;
 }
 
 // ------------------------- 다운로드 후 재생 -------------------------
+// A URL that is already cached is added and played without downloading it again. If nothing is
+// playing it is streamed and starts within seconds; otherwise it is queued, and played when it
+// finishes only if nothing else is playing by then. Either way it is added to the playlist that
+// was open at the time once the download is complete.
 private void downloadAndPlayYoutubeAudio(String url) {
-    showDownloadProgressWindow(url, tempWav -> playDownloadedFile(tempWav));
+    String playlistName = "PLAYLIST_DETAIL".equals(currentView) ? currentPlaylistName : null;
+    if (audioCache.get(url) != null) {
+        playDownloadedFile(addDownloadedUrl(url, playlistName));
+        return;
+    }
+    boolean stream = STREAM_URLS && !isPlaying();
+    Consumer<DownloadManager.Job> onFinished = job -> Platform.runLater(() -> {
+        if (job.getState() != DownloadManager.State.DONE) {
+            showAlert("Error", "Failed to download/convert audio:\n" + job.getMessage());
+            return;
+        }
+        File urlFile = addDownloadedUrl(url, playlistName);
+        if (!stream && !isPlaying()) {
+            playDownloadedFile(urlFile);
+        }
+    });
+    if (stream) {
+        requestedStreamUrl = url;
+        downloadManager.submit(url, this::streamToCache, onFinished);
+    } else {
+        downloadManager.submit(url, onFinished);
+    }
+    showDownloadsWindow();
+}
+
+private boolean isPlaying() {
+    return mediaPlayer != null && mediaPlayer.getStatus() == MediaPlayer.Status.PLAYING;
 }
 
 // ------------------------- MediaPlayer 재생 -------------------------
 private void playDownloadedFile(File file) {
+    playSource(sourceFor(file), stripExtension(file.getName()));
+    loadAlbumArt(file);
+}
+
+// Plays outside the current playlist: a finished download, or one still streaming in
+private void playSource(String source, String title) {
+    requestedStreamUrl = null;
+    skipDebounce.stop();
+    finishCrossfade();
     disposeMediaPlayer();
 
     try {
-        Media media = new Media(file.toURI().toString());
-        mediaPlayer = new MediaPlayer(media);
-        mediaPlayer.setVolume(volumeSlider.getValue());
-
-        mediaPlayer.setOnReady(() -> {
-            updateTrackInfo(stripExtension(file.getName()));
-            mediaPlayer.play();
-            playBtn.setText("■");
-        });
-
-        mediaPlayer.setOnEndOfMedia(this::playNext);
-        mediaPlayer.setOnError(() -> {
-            showAlert("Playback Error", "Could not play file:\n" + mediaPlayer.getError());
-            disposeMediaPlayer();
-        });
-
+        if (source == null) {
+            showAlert("Error", "Failed to get stream URL for playback.");
+            return;
+        }
+        startPlayer(players.open(source), title);
+        loadAlbumArt(null);
     } catch (Exception e) {
         showAlert("Playback Error", "Could not play file:\n" + e.getMessage());
         e.printStackTrace();
@@ -839,61 +1489,167 @@ private void playDownloadedFile(File file) {
 private void playTrack() {
     if (currentPlaylist.isEmpty()) return;
 
-    disposeMediaPlayer();
+    requestedStreamUrl = null;
+    skipDebounce.stop();
+    if (!isFadeStarting) finishCrossfade();
     File file = currentPlaylist.get(currentIndex);
+    MediaPlayer preloaded = players.takePreloaded(file);
+    disposeMediaPlayer();
 
-    try {
-        String source = file.getName().startsWith("URL: ") ? urlMappings.get(file.getAbsolutePath()) : file.toURI().toString();
+    if (preloaded == null && !file.getPath().startsWith("URL: ") && !file.exists()) {
+        libraryValidator.markUnavailable(file);
+        contentView.refresh();
+        showAlert("Error", "File not found:\n" + file.getAbsolutePath());
+        return;
+    }
 
-        if (source == null) {
-            showAlert("Error", "Failed to get stream URL for playback.");
-            return;
+    try {
+        MediaPlayer player = preloaded;
+        if (player == null) {
+            String source = sourceFor(file);
+            if (source == null) {
+                showAlert("Error", "Failed to get stream URL for playback.");
+                return;
+            }
+            player = players.open(source);
         }
-
-        Media media = new Media(source);
-        mediaPlayer = new MediaPlayer(media);
-        mediaPlayer.setVolume(volumeSlider.getValue());
-
-        String baseName = stripExtension(file.getName());
-        updateTrackInfo(baseName);
-        playBtn.setText("■");
+        startPlayer(player, stripExtension(file.getName()));
+        showIndexedTags(file);
+        loadAlbumArt(file);
         playedIndices.add(currentIndex);
 
-        setupMetadataListener(media);
-        setupTimeListener();
-        setupMediaPlayerCallbacks();
-
     } catch (Exception e) {
         showAlert("Playback Error", "Could not play file: " + e.getMessage());
         e.printStackTrace();
     }
 }
 
+// Shared by playlist tracks and downloaded files so both get the same listeners and cleanup
+private void startPlayer(MediaPlayer player, String baseName) {
+    mediaPlayer = player;
+    mediaPlayer.setVolume(isFadeStarting ? 0 : volumeSlider.getValue());
+
+    updateTrackInfo(baseName);
+    playBtn.setText("■");
+
+    displayedSecond = -1;
+    setupMetadataListener(mediaPlayer.getMedia());
+    setupMediaPlayerCallbacks();
+}
+
+// URL tracks play from the audio cache; null if theirs was evicted
+private String sourceFor(File file) {
+    if (!TrackRegistry.isUrl(file)) return file.toURI().toString();
+    String url = trackRegistry.urlOf(file);
+    File cached = url == null ? null : audioCache.get(url);
+    return cached == null ? null : cached.toURI().toString();
+}
+
+// Opens the track playNext() will move to once the current one is near its end,
+// and in crossfade mode starts the fade when the overlap window is reached
+private void maybePreloadNext(Duration currentTime) {
+    if (transitionMode == TransitionMode.OFF || mediaPlayer == null) return;
+
+    Duration total = mediaPlayer.getTotalDuration();
+    if (total == null || total.isUnknown() || total.isIndefinite()) return;
+    double remaining = total.toSeconds() - currentTime.toSeconds();
+
+    if (players.hasPreload()) {
+        if (transitionMode == TransitionMode.CROSSFADE && remaining <= crossfadeSeconds && fadingOutPlayer == null
+                && players.isPreloadReady()) {
+            startCrossfade();
+        }
+        return;
+    }
+    double lead = transitionMode == TransitionMode.CROSSFADE ? crossfadeSeconds + PRELOAD_SECONDS : PRELOAD_SECONDS;
+    if (remaining > lead) return;
+
+    int next = peekNextIndex();
+    if (next < 0) return;
+
+    File nextFile = currentPlaylist.get(next);
+    players.preload(nextFile, sourceFor(nextFile));
+}
+
+// Advances to the preloaded next track while the current one keeps playing, then ramps
+// both volumes from one timer. The outgoing player is always disposed by finishCrossfade().
+private void startCrossfade() {
+    MediaPlayer outgoing = mediaPlayer;
+    outgoing.setOnEndOfMedia(null);
+    outgoing.setOnError(null);
+    mediaPlayer = null;
+
+    isFadeStarting = true;
+    try {
+        playNext();
+    } finally {
+        isFadeStarting = false;
+    }
+
+    fadingOutPlayer = outgoing;
+    if (mediaPlayer == null) {
+        finishCrossfade();
+        return;
+    }
+    fadeStartNanos = System.nanoTime();
+    if (crossfadeTimer == null) {
+        crossfadeTimer = new Timeline(new KeyFrame(CROSSFADE_TICK, e -> stepCrossfade()));
+        crossfadeTimer.setCycleCount(Timeline.INDEFINITE);
+    }
+    crossfadeTimer.play();
+}
+
+private void stepCrossfade() {
+    double t = (System.nanoTime() - fadeStartNanos) / (crossfadeSeconds * 1e9);
+    if (t >= 1 || fadingOutPlayer == null || mediaPlayer == null) {
+        finishCrossfade();
+        return;
+    }
+    // Equal-power curves keep the perceived loudness steady through the overlap
+    double volume = volumeSlider.getValue();
+    fadingOutPlayer.setVolume(volume * Math.cos(t * Math.PI / 2));
+    mediaPlayer.setVolume(volume * Math.sin(t * Math.PI / 2));
+}
+
+private void finishCrossfade() {
+    if (crossfadeTimer != null) crossfadeTimer.stop();
+    players.release(fadingOutPlayer);
+    fadingOutPlayer = null;
+    if (mediaPlayer != null) {
+        mediaPlayer.setVolume(volumeSlider.getValue());
+    }
+}
+
 private void addUrlToPlaylist(File urlFile, String playlistName) {
-    ObservableList<File> pl = playlists.get(playlistName);
-    if (pl != null && !pl.contains(urlFile)) {
-        pl.add(urlFile);
-        saveDataToFile();
-        openPlaylist(playlistName);
+    if (importTracks(Collections.singletonList(urlFile), playlistName) > 0) {
         showAlert("Success", "YouTube audio added to playlist!");
     }
 }
 
 private void addUrlToLibrary(File urlFile) {
-    if (!allSongs.contains(urlFile)) {
-        allSongs.add(urlFile);
-        saveDataToFile();
-        updateContentView();
+    if (importTracks(Collections.singletonList(urlFile), null) > 0) {
         showAlert("Success", "YouTube audio added to library!");
     }
 }
 
     private void disposeMediaPlayer() {
-        if (mediaPlayer != null) {
-            mediaPlayer.stop();
-            mediaPlayer.dispose();
-            mediaPlayer = null;
-        }
+        players.release(mediaPlayer);
+        mediaPlayer = null;
+        if (positionTicker != null) positionTicker.stop();
+    }
+
+    // Tags from the background index, shown before the player has parsed its own metadata
+    private void showIndexedTags(File file) {
+        TrackTags tags = tagIndex.get(file);
+        if (tags == null) return;
+        if (tags.title != null) updateTrackInfo(tags.title);
+        if (tags.artist != null) trackArtist.setText(tags.artist);
+    }
+
+    private String trackLabel(File file) {
+        TrackTags tags = tagIndex.get(file);
+        String name = stripExtension(file.getName());
+        return tags == null ? name : tags.displayName(name);
     }
 
     private void updateTrackInfo(String baseName) {
@@ -903,83 +1659,145 @@ private void addUrlToLibrary(File urlFile) {
     }
 
     private void setupMetadataListener(Media media) {
+        // A preloaded media may have parsed its tags before it became current
+        media.getMetadata().forEach(this::applyMetadata);
         media.getMetadata().addListener((javafx.collections.MapChangeListener.Change<? extends String, ? extends Object> change) -> {
             if (change.wasAdded()) {
                 String key = change.getKey();
                 Object value = change.getValueAdded();
                 
-                Platform.runLater(() -> {
-                    switch (key) {
-                        case "image":
-                            updateAlbumArt((Image) value);
-                            break;
-                        case "artist":
-                            trackArtist.setText((String) value);
-                            break;
-                        case "title":
-                            trackTitle.setText((String) value);
-                            break;
-                    }
-                });
+                Platform.runLater(() -> applyMetadata(key, value));
             }
         });
     }
 
-    private void setupTimeListener() {
-        mediaPlayer.currentTimeProperty().addListener((obs, oldTime, newTime) -> {
-            if (!progressSlider.isValueChanging() && !isUpdatingProgress.get()) {
-                isUpdatingProgress.set(true);
-                Platform.runLater(() -> {
-                    progressSlider.setValue(newTime.toSeconds());
-                    currentTimeLabel.setText(formatTime(newTime));
-                    isUpdatingProgress.set(false);
-                });
-            }
-        });
+    private void applyMetadata(String key, Object value) {
+        switch (key) {
+            case "artist":
+                trackArtist.setText((String) value);
+                break;
+            case "title":
+                trackTitle.setText((String) value);
+                break;
+        }
+    }
+
+    // One fixed-rate tick instead of a runLater per currentTime change; slowed down while minimized
+    private void setupPositionTicker(Stage stage) {
+        positionTicker = new Timeline(new KeyFrame(Duration.seconds(1.0 / VISIBLE_REFRESH_HZ), e -> refreshPosition()));
+        positionTicker.setCycleCount(Timeline.INDEFINITE);
+        stage.iconifiedProperty().addListener((obs, wasIconified, iconified) ->
+                positionTicker.setRate(iconified ? (double) MINIMIZED_REFRESH_HZ / VISIBLE_REFRESH_HZ : 1.0));
+    }
+
+    private void refreshPosition() {
+        if (mediaPlayer == null) return;
+        Duration now = mediaPlayer.getCurrentTime();
+        if (!progressSlider.isValueChanging()) {
+            progressSlider.setValue(now.toSeconds());
+        }
+        // The label only changes once a second
+        int second = (int) now.toSeconds();
+        if (second != displayedSecond) {
+            displayedSecond = second;
+            currentTimeLabel.setText(formatTime(now));
+        }
+        maybePreloadNext(now);
+    }
+
+    private void updatePositionTicker(MediaPlayer.Status status) {
+        if (status == MediaPlayer.Status.PLAYING) {
+            positionTicker.play();
+        } else {
+            positionTicker.pause();
+            refreshPosition();
+        }
     }
 
     private void setupMediaPlayerCallbacks() {
-        mediaPlayer.setOnReady(() -> {
-            Duration totalDuration = mediaPlayer.getTotalDuration();
+        MediaPlayer player = mediaPlayer;
+        // Ignore a player that is no longer current, e.g. one fading out
+        player.statusProperty().addListener((obs, oldStatus, status) -> {
+            if (player == mediaPlayer) updatePositionTicker(status);
+        });
+        updatePositionTicker(player.getStatus());
+
+        Runnable onReady = () -> {
+            if (player != mediaPlayer) return;
+            Duration totalDuration = player.getTotalDuration();
             progressSlider.setMax(totalDuration.toSeconds());
             totalTimeLabel.setText(formatTime(totalDuration));
-            mediaPlayer.play();
+            player.play();
+        };
+        // A preloaded player is usually ready already and will not fire onReady again
+        if (player.getStatus() == MediaPlayer.Status.READY) {
+            onReady.run();
+        } else {
+            player.setOnReady(onReady);
+        }
+
+        player.setOnError(() -> {
+            if (player != mediaPlayer) return;
+            showAlert("Playback Error", "Could not play file:\n" + player.getError());
+            disposeMediaPlayer();
         });
 
-        mediaPlayer.setOnEndOfMedia(() -> {
+        player.setOnEndOfMedia(() -> {
+            if (player != mediaPlayer) return;
             if (repeatMode == RepeatMode.ONE) {
-                mediaPlayer.seek(Duration.ZERO);
-                mediaPlayer.play();
+                player.seek(Duration.ZERO);
+                player.play();
             } else {
                 playNext();
             }
         });
     }
 
-    private void updateAlbumArt(Image image) {
-        albumPane.getChildren().clear();
-        Rectangle albumRect = new Rectangle(180, 180);
+    // Built once; switching tracks only swaps the image
+    private StackPane createAlbumPane() {
+        Rectangle albumRect = new Rectangle(ALBUM_ART_SIZE, ALBUM_ART_SIZE);
         albumRect.setFill(Color.web("#282828"));
         albumRect.setArcWidth(8);
         albumRect.setArcHeight(8);
 
-        if (image != null) {
-            albumArt.setImage(image);
-            albumArt.setFitWidth(180);
-            albumArt.setFitHeight(180);
-            albumArt.setPreserveRatio(true);
-            
-            Rectangle clip = new Rectangle(180, 180);
-            clip.setArcWidth(8);
-            clip.setArcHeight(8);
-            albumArt.setClip(clip);
-            
-            albumPane.getChildren().add(albumArt);
-        } else {
-            Label noAlbum = new Label("No Cover");
-            noAlbum.setStyle("-fx-text-fill:#535353; -fx-font-size:16px; -fx-font-weight:bold;");
-            albumPane.getChildren().addAll(albumRect, noAlbum);
+        noAlbumLabel = new Label("No Cover");
+        noAlbumLabel.setStyle("-fx-text-fill:#535353; -fx-font-size:16px; -fx-font-weight:bold;");
+
+        albumArt.setFitWidth(ALBUM_ART_SIZE);
+        albumArt.setFitHeight(ALBUM_ART_SIZE);
+        albumArt.setPreserveRatio(true);
+        Rectangle clip = new Rectangle(ALBUM_ART_SIZE, ALBUM_ART_SIZE);
+        clip.setArcWidth(8);
+        clip.setArcHeight(8);
+        albumArt.setClip(clip);
+
+        StackPane pane = new StackPane(albumRect, noAlbumLabel, albumArt);
+        pane.setPrefSize(ALBUM_ART_SIZE, ALBUM_ART_SIZE);
+        updateAlbumArt(null);
+        return pane;
+    }
+
+    // Embedded cover of a local or cached track, decoded to a thumbnail off the FX thread
+    private void loadAlbumArt(File track) {
+        artTrack = track;
+        updateAlbumArt(null);
+        if (track == null) return;
+
+        File source = track;
+        if (TrackRegistry.isUrl(track)) {
+            String url = trackRegistry.urlOf(track);
+            source = url == null ? null : audioCache.get(url);
+            if (source == null) return;
         }
+        artworkCache.load(source, image -> Platform.runLater(() -> {
+            if (track == artTrack) updateAlbumArt(image);
+        }));
+    }
+
+    private void updateAlbumArt(Image image) {
+        albumArt.setImage(image);
+        albumArt.setVisible(image != null);
+        noAlbumLabel.setVisible(image == null);
     }
 
     private void togglePlay() {
@@ -1008,6 +1826,7 @@ private void addUrlToLibrary(File urlFile) {
     }
 
     private void pausePlayback() {
+        finishCrossfade();
         mediaPlayer.pause();
         playBtn.setText("▶");
         playBtn.getProperties().put("active", Boolean.FALSE);
@@ -1022,62 +1841,110 @@ private void addUrlToLibrary(File urlFile) {
         playBtn.getProperties().put("activeStyle", playActive);
     }
 
-    private void playPrev() {
+    private void playNext() {
+        if (currentPlaylist.isEmpty()) return;
+
+        if (repeatMode == RepeatMode.ONE || moveToNext()) {
+            playTrack();
+        } else {
+            stopPlayback();
+        }
+    }
+
+    // Buttons move the index right away, but the track is only opened once the clicks stop.
+    // End of media and crossfades still call playNext() directly.
+    private void skipPrev() {
+        if (currentPlaylist.isEmpty()) return;
+
+        moveToPrev();
+        scheduleSkip();
+    }
+
+    private void skipNext() {
         if (currentPlaylist.isEmpty()) return;
 
+        if (repeatMode == RepeatMode.ONE || moveToNext()) {
+            scheduleSkip();
+        } else {
+            stopPlayback();
+        }
+    }
+
+    private PauseTransition createSkipDebounce() {
+        PauseTransition debounce = new PauseTransition(SKIP_DEBOUNCE);
+        debounce.setOnFinished(e -> playTrack());
+        return debounce;
+    }
+
+    // The track being left stops now, cancelling its load if it was still opening
+    private void scheduleSkip() {
+        finishCrossfade();
+        disposeMediaPlayer();
+        updateTrackInfo(stripExtension(currentPlaylist.get(currentIndex).getName()));
+        progressSlider.setValue(0);
+        currentTimeLabel.setText("0:00");
+        skipDebounce.playFromStart();
+    }
+
+    private void moveToPrev() {
         if (isShuffleOn && !shuffleOrder.isEmpty()) {
             shuffleIndex = (shuffleIndex - 1 + shuffleOrder.size()) % shuffleOrder.size();
             currentIndex = shuffleOrder.get(shuffleIndex);
         } else {
             currentIndex = (currentIndex - 1 + currentPlaylist.size()) % currentPlaylist.size();
         }
-        playTrack();
     }
 
-    private void playNext() {
-        if (currentPlaylist.isEmpty()) return;
-
-        if (repeatMode == RepeatMode.ONE) {
-            playTrack();
-            return;
+    // Returns false when the end of the playlist was reached and playback should stop
+    private boolean moveToNext() {
+        if (isShuffleOn && !shuffleOrder.isEmpty()) {
+            return moveToShuffleNext();
         }
+        return moveToNormalNext();
+    }
+
+    // Index playNext() would move to, or -1 when it would stop, repeat one, or reshuffle
+    private int peekNextIndex() {
+        if (currentPlaylist.isEmpty() || repeatMode == RepeatMode.ONE) return -1;
 
         if (isShuffleOn && !shuffleOrder.isEmpty()) {
-            handleShuffleNext();
-        } else {
-            handleNormalNext();
+            if (playedIndices.size() >= currentPlaylist.size()) return -1;
+            return shuffleOrder.get((shuffleIndex + 1) % shuffleOrder.size());
         }
+        int next = (currentIndex + 1) % currentPlaylist.size();
+        return next == 0 && repeatMode == RepeatMode.OFF ? -1 : next;
     }
 
-    private void handleShuffleNext() {
+    private boolean moveToShuffleNext() {
         if (playedIndices.size() >= currentPlaylist.size()) {
             if (repeatMode == RepeatMode.ALL) {
                 playedIndices.clear();
                 generateShuffleOrder();
             } else {
-                stopPlayback();
-                return;
+                return false;
             }
         }
         shuffleIndex = (shuffleIndex + 1) % shuffleOrder.size();
         currentIndex = shuffleOrder.get(shuffleIndex);
-        playTrack();
+        // Counted here rather than when playback starts, since debounced skips pass over tracks
+        // without playing them and would otherwise never reach the end of the order
+        playedIndices.add(currentIndex);
+        return true;
     }
 
-    private void handleNormalNext() {
+    private boolean moveToNormalNext() {
         currentIndex = (currentIndex + 1) % currentPlaylist.size();
-        if (currentIndex == 0 && repeatMode == RepeatMode.OFF) {
-            stopPlayback();
-        } else {
-            playTrack();
-        }
+        return currentIndex != 0 || repeatMode != RepeatMode.OFF;
     }
 
     private void stopPlayback() {
+        skipDebounce.stop();
+        finishCrossfade();
+        players.discardPreloaded();
         if (mediaPlayer != null) {
             mediaPlayer.stop();
-            playBtn.setText("▶");
         }
+        playBtn.setText("▶");
     }
 
     private void toggleShuffle() {
@@ -1117,6 +1984,34 @@ private void addUrlToLibrary(File urlFile) {
         shuffleIndex = 0;
     }
 
+    // Off -> Gapless -> Fade 3s -> Fade 6s -> Fade 10s -> Off
+    private void toggleTransition() {
+        applyHoverEffect(transitionBtn);
+        if (transitionMode == TransitionMode.OFF) {
+            setTransitionMode(TransitionMode.GAPLESS, "Gapless", ACTIVE_CONTROL_STYLE);
+        } else if (transitionMode == TransitionMode.GAPLESS) {
+            crossfadeSeconds = CROSSFADE_STEPS[0];
+            setTransitionMode(TransitionMode.CROSSFADE, "Fade " + crossfadeSeconds + "s", REPEAT_ONE_STYLE);
+        } else {
+            int step = Arrays.binarySearch(CROSSFADE_STEPS, crossfadeSeconds) + 1;
+            if (step < CROSSFADE_STEPS.length) {
+                crossfadeSeconds = CROSSFADE_STEPS[step];
+                setTransitionMode(TransitionMode.CROSSFADE, "Fade " + crossfadeSeconds + "s", REPEAT_ONE_STYLE);
+            } else {
+                setTransitionMode(TransitionMode.OFF, "Gapless", INACTIVE_CONTROL_STYLE);
+                players.discardPreloaded();
+            }
+        }
+    }
+
+    private void setTransitionMode(TransitionMode mode, String text, String style) {
+        transitionMode = mode;
+        transitionBtn.setText(text);
+        transitionBtn.setStyle(style);
+        transitionBtn.getProperties().put("active", mode != TransitionMode.OFF);
+        transitionBtn.getProperties().put("activeStyle", style);
+    }
+
     private void toggleRepeat() {
         applyHoverEffect(repeatBtn);
         switch (repeatMode) {
@@ -1141,76 +2036,58 @@ private void addUrlToLibrary(File urlFile) {
     }
 
     // Save/Load Data
-    private void saveDataToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(convertFilesToPaths(allSongs));
-            oos.writeObject(convertPlaylistsToPaths());
-        } catch (IOException e) {
-            System.err.println("Failed to save data: " + e.getMessage());
-        }
+    private void persist(LibraryChange... changes) {
+        persist(Arrays.asList(changes));
     }
 
-    private List<String> convertFilesToPaths(ObservableList<File> files) {
-        List<String> paths = new ArrayList<>();
-        for (File f : files) {
-            paths.add(f.getName().startsWith("URL: ") ? f.getName() : f.getAbsolutePath());
-        }
-        return paths;
+    private void persist(List<LibraryChange> changes) {
+        libraryWriter.submit(changes);
     }
 
-    private Map<String, List<String>> convertPlaylistsToPaths() {
-        Map<String, List<String>> playlistData = new HashMap<>();
-        for (Map.Entry<String, ObservableList<File>> entry : playlists.entrySet()) {
-            playlistData.put(entry.getKey(), convertFilesToPaths(entry.getValue()));
-        }
-        return playlistData;
+    private String toStoredPath(File f) {
+        return TrackRegistry.isUrl(f) ? trackRegistry.keyOf(f) : f.getAbsolutePath();
     }
 
-    @SuppressWarnings("unchecked")
+    // Renders from the stored index right away; existence is checked in the background
     private void loadDataFromFile() {
-        File dataFile = new File(DATA_FILE);
-        if (!dataFile.exists()) return;
-
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(dataFile))) {
-            List<String> songPaths = (List<String>) ois.readObject();
-            loadSongsFromPaths(songPaths);
+        try {
+            LibraryData data = libraryStore.load();
+            loadSongsFromPaths(data.getSongs());
+            loadPlaylistsFromData(data.getPlaylists());
 
-            Map<String, List<String>> playlistData = (Map<String, List<String>>) ois.readObject();
-            loadPlaylistsFromData(playlistData);
-        } catch (Exception e) {
+            Set<File> tracks = new LinkedHashSet<>(allSongs);
+            for (ObservableList<File> playlist : playlists.values()) {
+                tracks.addAll(playlist);
+            }
+            libraryValidator.validate(new ArrayList<>(tracks), changed -> requestRefresh());
+            // Tracks removed in earlier sessions; saved once this run finishes
+            tagIndex.retainOnly(tracks);
+            tagIndex.index(new ArrayList<>(tracks), this::onTagsIndexed);
+        } catch (IOException e) {
             System.err.println("Failed to load data: " + e.getMessage());
         }
     }
 
-    private void loadSongsFromPaths(List<String> songPaths) {
-        allSongs.clear();
+    private void loadSongsFromPaths(Collection<String> songPaths) {
+        List<File> songs = new ArrayList<>(songPaths.size());
         for (String path : songPaths) {
-            if (path.startsWith("URL: ")) {
-                allSongs.add(new File(path));
-            } else {
-                File musicFile = new File(path);
-                if (musicFile.exists()) {
-                    allSongs.add(musicFile);
-                }
-            }
+            songs.add(trackRegistry.intern(path));
         }
+        allSongs.setAll(songs);
     }
 
-    private void loadPlaylistsFromData(Map<String, List<String>> playlistData) {
+    // Playlist entries reuse the library's File instances so each path is held once
+    private void loadPlaylistsFromData(Map<String, ? extends Collection<String>> playlistData) {
         playlists.clear();
-        for (Map.Entry<String, List<String>> entry : playlistData.entrySet()) {
-            ObservableList<File> playlist = FXCollections.observableArrayList();
+        playlistIndexes.clear();
+        playlistDurations.clear();
+        playlistNames.clear();
+        for (Map.Entry<String, ? extends Collection<String>> entry : playlistData.entrySet()) {
+            List<File> files = new ArrayList<>(entry.getValue().size());
             for (String path : entry.getValue()) {
-                if (path.startsWith("URL: ")) {
-                    playlist.add(new File(path));
-                } else {
-                    File musicFile = new File(path);
-                    if (musicFile.exists()) {
-                        playlist.add(musicFile);
-                    }
-                }
+                files.add(trackRegistry.intern(path));
             }
-            playlists.put(entry.getKey(), playlist);
+            addPlaylist(entry.getKey(), FXCollections.observableArrayList(files));
         }
     }
 
@@ -1334,7 +2211,21 @@ private void addUrlToLibrary(File urlFile) {
         int totalSeconds = (int) duration.toSeconds();
         int minutes = totalSeconds / 60;
         int seconds = totalSeconds % 60;
-        return String.format("%d:%02d", minutes, seconds);
+        return minutes + (seconds < 10 ? ":0" : ":") + seconds;
+    }
+
+    // ", h:mm:ss" for the known part of a playlist; "+" while some lengths are still unknown
+    private String playlistLength(String playlistName) {
+        PlaylistDuration duration = playlistDurations.get(playlistName);
+        if (duration == null || duration.getTotalMillis() == 0) return "";
+        long totalSeconds = duration.getTotalMillis() / 1000;
+        long hours = totalSeconds / 3600;
+        long minutes = totalSeconds / 60 % 60;
+        long seconds = totalSeconds % 60;
+        String length = hours > 0
+                ? hours + (minutes < 10 ? ":0" : ":") + minutes + (seconds < 10 ? ":0" : ":") + seconds
+                : minutes + (seconds < 10 ? ":0" : ":") + seconds;
+        return ", " + length + (duration.getUnknownCount() > 0 ? "+" : "");
     }
 
     private String stripExtension(String name) {